@@ -0,0 +1,155 @@
+package ex5;
+
+import ex5.parsing.Lexer;
+import ex5.parsing.LineCache;
+import ex5.parsing.TokenStream;
+import ex5.util.NamePool;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The ChunkedTokenizer class reads and tokenizes a huge file in parallel.
+ * The file is memory-mapped and split at line boundaries into chunks. Every chunk is copied out of
+ * the mapping, has its comments and empty lines skipped by a {@link LineSource} and is lexed with
+ * its own lexer and line cache, all in parallel. The lines of the chunks are then stitched back in
+ * file order, so the result is the same as tokenizing the file line by line.
+ * Identifiers are interned into the shared name pool of the file through a local pool per chunk, so
+ * the tokens of all the chunks hold IDs of the same pool.
+ */
+public class ChunkedTokenizer {
+    private static final int MIN_CHUNK_SIZE = 1 << 22;
+    private static final int CHUNKS_PER_WORKER = 4;
+
+    private final MappedByteBuffer file;
+    private final NamePool names;
+    private final int lineCacheCapacity;
+    private final int[] boundaries;
+    private final List<List<TokenStream>> chunkLines;
+
+    /**
+     * Constructs a ChunkedTokenizer over a mapped file, and splits it into chunks.
+     *
+     * @param file              The mapped file.
+     * @param names             The name pool of the file, where identifiers are interned.
+     * @param lineCacheCapacity The capacity of the line cache of every chunk.
+     */
+    private ChunkedTokenizer(MappedByteBuffer file, NamePool names, int lineCacheCapacity) {
+        this.file = file;
+        this.names = names;
+        this.lineCacheCapacity = lineCacheCapacity;
+        int size = file.limit();
+        int workers = ForkJoinPool.getCommonPoolParallelism();
+        int chunkCount = Math.max(1, Math.min(size / MIN_CHUNK_SIZE, workers * CHUNKS_PER_WORKER));
+
+        // Move every boundary forward to the start of a line:
+        boundaries = new int[chunkCount + 1];
+        boundaries[chunkCount] = size;
+        for (int chunk = 1; chunk < chunkCount; chunk++) {
+            int boundary = Math.max((int) ((long) size * chunk / chunkCount), boundaries[chunk - 1]);
+            while (boundary < size && file.get(boundary++) != '\n') {
+                // Keep looking for the end of the line
+            }
+            boundaries[chunk] = boundary;
+        }
+        chunkLines = new ArrayList<>(chunkCount);
+        for (int chunk = 0; chunk < chunkCount; chunk++) {
+            chunkLines.add(null);
+        }
+    }
+
+    /**
+     * Reads the code lines of a file and tokenizes them, in parallel.
+     *
+     * @param filePath          The path to the file to be read.
+     * @param names             The name pool of the file, where identifiers are interned.
+     * @param lineCacheCapacity The capacity of the line cache of every chunk.
+     * @return The tokens of the code lines of the file, in order.
+     * @throws IOException If there is an issue reading the file.
+     */
+    public static List<TokenStream> tokenize(String filePath, NamePool names, int lineCacheCapacity)
+            throws IOException {
+        MappedByteBuffer file;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(filePath);
+            }
+            file = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ChunkedTokenizer tokenizer = new ChunkedTokenizer(file, names, lineCacheCapacity);
+        tokenizer.new ChunksTask(0, tokenizer.chunkLines.size()).invoke();
+
+        // Stitch the chunks back in order:
+        int lineCount = 0;
+        for (List<TokenStream> lines : tokenizer.chunkLines) {
+            lineCount += lines.size();
+        }
+        List<TokenStream> lines = new ArrayList<>(lineCount);
+        for (List<TokenStream> chunk : tokenizer.chunkLines) {
+            lines.addAll(chunk);
+        }
+        return lines;
+    }
+
+    /**
+     * Reads and tokenizes the code lines of a single chunk.
+     *
+     * @param chunk The index of the chunk.
+     */
+    private void tokenizeChunk(int chunk) {
+        byte[] bytes = new byte[boundaries[chunk + 1] - boundaries[chunk]];
+        file.get(boundaries[chunk], bytes);
+        LineSource source = LineSource.wrap(bytes);
+        LineCache lineCache = new LineCache(new Lexer(new NamePool(names)), lineCacheCapacity);
+        List<TokenStream> lines = new ArrayList<>();
+        while (source.next()) {
+            lines.add(lineCache.tokenize(source.source(), source.start(), source.end()));
+        }
+        chunkLines.set(chunk, lines);
+    }
+
+    /**
+     * The ChunksTask class tokenizes a range of the chunks, splitting it in halves so idle workers
+     * can steal the other half. The lines of every chunk are stored by its index.
+     * Tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private class ChunksTask extends RecursiveAction {
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructs a task over a range of the chunks.
+         *
+         * @param start The index of the first chunk.
+         * @param end   The index after the last chunk.
+         */
+        ChunksTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Tokenizes the range, or splits it if it holds more than one chunk.
+         */
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ChunksTask(start, middle), new ChunksTask(middle, end));
+                return;
+            }
+            for (int chunk = start; chunk < end; chunk++) {
+                tokenizeChunk(chunk);
+            }
+        }
+    }
+}
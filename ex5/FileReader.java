@@ -4,13 +4,11 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
- * The FileReader class is responsible for reading and preprocessing files for validation.
- * It includes methods to read lines from a file and preprocess those lines by removing comments
- * and empty lines.
+ * The FileReader class is responsible for reading text files, such as the lists of files given to
+ * the batch validator, line by line. The code lines of an s-Java file are streamed by the
+ * {@link LineSource} instead.
  */
 public class FileReader {
 
@@ -34,24 +32,4 @@ public class FileReader {
 
         return lines;
     }
-
-    /**
-     * Preprocesses a list of lines by removing comments and empty lines.
-     *
-     * @param lines The original list of lines from the file.
-     * @return A new list of strings containing only valid, non-commented, and non-empty lines.
-     */
-    public static List<String> preProcessLines(List<String> lines) {
-        List<String> newLines = new ArrayList<>();
-        Pattern commentLinePattern = Pattern.compile("^//.*");
-
-        for (String line : lines) {
-            // Remove comments and empty lines:
-            Matcher matcher = commentLinePattern.matcher(line);
-            if (!line.trim().isEmpty() && !matcher.find()) {
-                newLines.add(line);
-            }
-        }
-        return newLines;
-    }
 }
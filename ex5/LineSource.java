@@ -0,0 +1,269 @@
+package ex5;
+
+import ex5.util.ByteScanner;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The LineSource class streams the code lines of a file: lines that are empty, blank or comments
+ * (starting with "//") are skipped as the file is scanned, so no list of the lines is ever built.
+ * The file is read once through a {@link FileChannel} into a single buffer of its UTF-8 bytes, and
+ * every line is handed out as a range of that shared buffer, so lines are never copied or decoded.
+ * Line ends are searched eight bytes at a time by the {@link ByteScanner}.
+ * Malformed UTF-8 sequences are replaced as decoding the file as text would. Well-formed files are
+ * only scanned, and in other files only the lines that hold a malformed sequence are decoded.
+ * Lines end at "\n", "\r" or "\r\n", as with {@link java.io.BufferedReader#readLine()}.
+ *
+ * <h2>How to Use</h2>
+ * <pre>
+ * LineSource lines = LineSource.open(filePath);
+ * while (lines.next()) {
+ *     lexer.tokenize(lines.source(), lines.start(), lines.end());
+ * }
+ * </pre>
+ */
+public class LineSource {
+    private static final String COMMENT_START = "//";
+    private static final int CONTINUATION_MASK = 0xC0;
+    private static final int CONTINUATION = 0x80;
+
+    private final byte[] source;
+    private int start;
+    private int end;
+    private int position;
+
+    /**
+     * Constructs a LineSource over the bytes of a file.
+     *
+     * @param source The UTF-8 bytes of the file.
+     */
+    private LineSource(byte[] source) {
+        this.source = source;
+    }
+
+    /**
+     * Reads a file and opens a LineSource over it, before its first line.
+     *
+     * @param filePath The path to the file to be read.
+     * @return The line source of the file.
+     * @throws IOException If there is an issue reading the file.
+     */
+    public static LineSource open(String filePath) throws IOException {
+        byte[] source;
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(filePath);
+            }
+            source = new byte[(int) size];
+            ByteBuffer buffer = ByteBuffer.wrap(source);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+            if (buffer.hasRemaining()) {
+                // The file was truncated while it was read
+                source = Arrays.copyOf(source, buffer.position());
+            }
+        }
+        return wrap(source);
+    }
+
+    /**
+     * Opens a LineSource over bytes that were already read, before their first line.
+     *
+     * @param source The bytes of whole lines of a file, which are kept and must not be modified.
+     * @return The line source of the bytes.
+     */
+    public static LineSource wrap(byte[] source) {
+        int malformed = indexOfMalformed(source, 0, source.length);
+        if (malformed < source.length) {
+            source = repair(source, malformed);
+        }
+        return new LineSource(source);
+    }
+
+    /**
+     * Moves to the next code line of the file, skipping empty, blank and comment lines.
+     *
+     * @return True if there is a next code line, false if the file ended.
+     */
+    public boolean next() {
+        while (position < source.length) {
+            start = position;
+            position = ByteScanner.indexOfLineEnd(source, position, source.length);
+            end = position;
+
+            // Skip the line terminator:
+            if (position < source.length && source[position++] == '\r' &&
+                    position < source.length && source[position] == '\n') {
+                position++;
+            }
+            if (!isBlank() && !isComment()) {
+                return true;
+            }
+        }
+        start = end = source.length;
+        return false;
+    }
+
+    /**
+     * Gets the bytes of the file, which the offsets of the lines refer to. The bytes are shared and
+     * must not be modified.
+     *
+     * @return The UTF-8 bytes of the file.
+     */
+    public byte[] source() {
+        return source;
+    }
+
+    /**
+     * Gets the start offset of the current line.
+     *
+     * @return The start offset (inclusive) of the line in the source.
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * Gets the end offset of the current line, before its line terminator.
+     *
+     * @return The end offset (exclusive) of the line in the source.
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * Checks whether the current line holds only whitespace, as {@link String#trim()} defines it.
+     */
+    private boolean isBlank() {
+        for (int i = start; i < end; i++) {
+            if ((source[i] & 0xFF) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the current line is a comment, which starts with "//" at its first column.
+     */
+    private boolean isComment() {
+        return end - start >= COMMENT_START.length() &&
+                source[start] == COMMENT_START.charAt(0) && source[start + 1] == COMMENT_START.charAt(1);
+    }
+
+    /**
+     * Finds the first malformed UTF-8 sequence in a range of bytes. A sequence is well-formed if it
+     * is the shortest encoding of a code point that is not a surrogate, as decoding requires.
+     *
+     * @param source The bytes to search.
+     * @param from   The start offset (inclusive) of the range.
+     * @param to     The end offset (exclusive) of the range.
+     * @return The offset of the first malformed sequence, or {@code to} if the range holds none.
+     */
+    private static int indexOfMalformed(byte[] source, int from, int to) {
+        int position = ByteScanner.indexOfNonAscii(source, from, to);
+        while (position < to) {
+            int lead = source[position] & 0xFF;
+            int length;
+            int secondMin = CONTINUATION;
+            int secondMax = 0xBF;
+            if (lead >= 0xC2 && lead <= 0xDF) {
+                length = 2;
+            } else if (lead >= 0xE0 && lead <= 0xEF) {
+                length = 3;
+                if (lead == 0xE0) {
+                    secondMin = 0xA0; // Overlong
+                } else if (lead == 0xED) {
+                    secondMax = 0x9F; // Surrogate
+                }
+            } else if (lead >= 0xF0 && lead <= 0xF4) {
+                length = 4;
+                if (lead == 0xF0) {
+                    secondMin = 0x90; // Overlong
+                } else if (lead == 0xF4) {
+                    secondMax = 0x8F; // Above U+10FFFF
+                }
+            } else {
+                return position;
+            }
+            if (position + length > to) {
+                return position;
+            }
+            int second = source[position + 1] & 0xFF;
+            if (second < secondMin || second > secondMax) {
+                return position;
+            }
+            for (int i = position + 2; i < position + length; i++) {
+                if ((source[i] & CONTINUATION_MASK) != CONTINUATION) {
+                    return position;
+                }
+            }
+            position += length;
+            // Text in a non-Latin script is mostly multi-byte, so only skip ahead after an ASCII byte:
+            if (position < to && source[position] >= 0) {
+                position = ByteScanner.indexOfNonAscii(source, position, to);
+            }
+        }
+        return to;
+    }
+
+    /**
+     * Replaces the malformed UTF-8 sequences of a file, as decoding it as text would. Line
+     * terminators are ASCII, so they end every malformed sequence, and every line that holds one is
+     * decoded on its own; the other lines are copied as they are.
+     *
+     * @param source    The bytes of the file.
+     * @param malformed The offset of the first malformed sequence.
+     * @return The repaired bytes of the file.
+     */
+    private static byte[] repair(byte[] source, int malformed) {
+        int lineStart = malformed;
+        while (lineStart > 0 && source[lineStart - 1] != '\n' && source[lineStart - 1] != '\r') {
+            lineStart--;
+        }
+
+        // Decode the malformed lines first, to size the repaired file:
+        List<Integer> starts = new ArrayList<>();
+        List<Integer> ends = new ArrayList<>();
+        List<byte[]> replacements = new ArrayList<>();
+        int size = source.length;
+        for (int start = lineStart; start < source.length; ) {
+            int end = ByteScanner.indexOfLineEnd(source, start, source.length);
+            if (indexOfMalformed(source, start, end) < end) {
+                String line = new String(source, start, end - start, StandardCharsets.UTF_8);
+                byte[] replacement = line.getBytes(StandardCharsets.UTF_8);
+                starts.add(start);
+                ends.add(end);
+                replacements.add(replacement);
+                size += replacement.length - (end - start);
+            }
+            start = end + 1;
+        }
+
+        byte[] repaired = new byte[size];
+        int copied = 0;
+        int written = 0;
+        for (int i = 0; i < replacements.size(); i++) {
+            int length = starts.get(i) - copied;
+            System.arraycopy(source, copied, repaired, written, length);
+            written += length;
+            byte[] replacement = replacements.get(i);
+            System.arraycopy(replacement, 0, repaired, written, replacement.length);
+            written += replacement.length;
+            copied = ends.get(i);
+        }
+        System.arraycopy(source, copied, repaired, written, source.length - copied);
+        return repaired;
+    }
+}
@@ -0,0 +1,152 @@
+package ex5;
+
+import ex5.parsing.MethodReader;
+import ex5.parsing.MethodTable;
+import ex5.parsing.ParserException;
+import ex5.parsing.SyntaxTree;
+import ex5.scope_managing.ScopeManager;
+import ex5.scope_managing.ScopeManagerException;
+import ex5.scope_managing.SymbolTable;
+import ex5.scope_managing.SymbolTableException;
+import ex5.util.IntMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The ValidationContext class holds all the mutable state of the validation of a single file:
+ * the symbol table, the scope manager and the method table.
+ * Everything else the validation uses is immutable and shared: the syntax tree, its name pool and
+ * block index, and the type compatibility table. A context must be used for a single validation on a
+ * single thread, while any number of contexts may validate files concurrently.
+ * <p>
+ * Once the method signatures and the global variables are read, every method body depends only on
+ * them, so method bodies are validated in parallel, each with its own symbol table and scope manager
+ * layered over a frozen snapshot of the global scope.
+ */
+public class ValidationContext {
+    private static final int METHODS_PER_TASK = 4;
+
+    private SymbolTable symbolTable;
+    private ScopeManager scopeManager;
+    private SyntaxTree tree;
+    private MethodTable methods;
+    private IntMap<Variable> globalSnapshot;
+    private List<Integer> methodNodes;
+    private Exception[] methodErrors;
+
+    /**
+     * Validates a file: reads its method declarations and global statements in a single pass, and
+     * then validates the method bodies in parallel. If several method bodies are invalid, the
+     * error of the first one in the file is thrown.
+     *
+     * @param tree The syntax tree of the file.
+     * @throws ParserException       If the syntax or semantics of a statement are invalid.
+     * @throws SymbolTableException  If there are issues with the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    public void validate(SyntaxTree tree)
+            throws ParserException, SymbolTableException, ScopeManagerException {
+        this.tree = tree;
+        symbolTable = new SymbolTable(tree.names());
+        scopeManager = new ScopeManager(symbolTable);
+        scopeManager.enterNewScope(ScopeKind.GLOBAL);
+        methods = MethodReader.readMethods(tree, symbolTable);
+        globalSnapshot = symbolTable.snapshotGlobalScope();
+
+        // Global statements were validated by the MethodReader, validate the method bodies
+        methodNodes = new ArrayList<>();
+        int root = tree.root();
+        for (int node = root + 1; node < tree.end(root); node = tree.end(node)) {
+            if (tree.kind(node) == NodeKind.METHOD) {
+                methodNodes.add(node);
+            }
+        }
+        methodErrors = new Exception[methodNodes.size()];
+        new MethodBodiesTask(0, methodNodes.size()).invoke();
+        for (Exception methodError : methodErrors) {
+            if (methodError != null) {
+                rethrow(methodError);
+            }
+        }
+    }
+
+    /**
+     * Validates a single method body with its own symbol table and scope manager.
+     *
+     * @param node The METHOD node.
+     * @throws ParserException       If the method body is invalid.
+     * @throws SymbolTableException  If there are issues with the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    private void validateMethod(int node)
+            throws ParserException, SymbolTableException, ScopeManagerException {
+        SymbolTable methodSymbolTable = new SymbolTable(tree.names(), globalSnapshot);
+        ScopeManager methodScopeManager = new ScopeManager(methodSymbolTable);
+        methodScopeManager.enterNewScope(ScopeKind.GLOBAL);
+        tree.accept(new Validator(methodSymbolTable, methodScopeManager, methods), node, tree.end(node));
+    }
+
+    /**
+     * Throws a validation error again with its original type.
+     *
+     * @param error A ParserException, SymbolTableException or ScopeManagerException.
+     * @throws ParserException       If the error is a ParserException.
+     * @throws SymbolTableException  If the error is a SymbolTableException.
+     * @throws ScopeManagerException If the error is a ScopeManagerException.
+     */
+    private static void rethrow(Exception error)
+            throws ParserException, SymbolTableException, ScopeManagerException {
+        if (error instanceof ParserException) {
+            throw (ParserException) error;
+        }
+        if (error instanceof SymbolTableException) {
+            throw (SymbolTableException) error;
+        }
+        throw (ScopeManagerException) error;
+    }
+
+    /**
+     * The MethodBodiesTask class validates a range of the collected methods, splitting it in halves
+     * so idle workers can steal the other half. The error of every method is stored by its index.
+     * Tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private class MethodBodiesTask extends RecursiveAction {
+        private final int start;
+        private final int end;
+
+        /**
+         * Constructs a task over a range of the collected methods.
+         *
+         * @param start The index of the first method.
+         * @param end   The index after the last method.
+         */
+        MethodBodiesTask(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Validates the range, or splits it if it holds too many methods.
+         */
+        @Override
+        protected void compute() {
+            if (end - start > METHODS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new MethodBodiesTask(start, middle), new MethodBodiesTask(middle, end));
+                return;
+            }
+            for (int i = start; i < end; i++) {
+                try {
+                    validateMethod(methodNodes.get(i));
+                } catch (ParserException | SymbolTableException | ScopeManagerException e) {
+                    methodErrors[i] = e;
+                }
+            }
+        }
+    }
+}
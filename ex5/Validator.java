@@ -5,40 +5,34 @@ import ex5.scope_managing.ScopeManager;
 import ex5.scope_managing.ScopeManagerException;
 import ex5.scope_managing.SymbolTable;
 import ex5.scope_managing.SymbolTableException;
-import ex5.util.Constants;
-
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static ex5.util.Constants.*;
 
 /**
- * The Validator class is responsible for validating lines of code and directing them to the
- * appropriate parsers.
- * It ensures that lines conform to the correct syntax and semantics,
+ * The Validator class is responsible for validating the statements of the syntax tree and directing
+ * them to the appropriate parsers.
+ * It walks the tree in source order, ensuring that statements conform to the correct semantics,
  * leveraging various parsers and a symbol table.
  */
-public class Validator {
+public class Validator implements TreeVisitor {
 
     private final AssignmentParser assignmentsParser;
     private final DeclarationParser declarationParser;
     private final IfAndWhileParser ifAndWhileParser;
     private final MethodParser methodParser;
     private final ScopeManager scopeManager;
-    private final Map<String, ArrayList<VariableType>> methods;
+    private final MethodTable methods;
 
     /**
-     * Constructs a Validator instance with the provided symbol table, scope manager, and methods map.
+     * Constructs a Validator instance with the provided symbol table, scope manager, and method table.
      *
      * @param symbolTable  The symbol table used for variable and method scope management.
      * @param scopeManager The scope manager to track and manage scopes.
-     * @param methods      A map of method names to their parameter types.
+     * @param methods      The signatures of the methods of the file.
      */
     public Validator(SymbolTable symbolTable,
                      ScopeManager scopeManager,
-                     Map<String, ArrayList<VariableType>> methods) {
+                     MethodTable methods) {
         this.scopeManager = scopeManager;
         this.methods = methods;
         this.assignmentsParser = new AssignmentParser(symbolTable);
@@ -48,85 +42,101 @@ public class Validator {
     }
 
     /**
-     * Validates a line of code and delegates it to the appropriate parser.
+     * Validates a method declaration and enters its scope.
      *
-     * @param line The line of code to validate.
-     * @return True if the line is valid, false otherwise.
-     * @throws ParserException       If the syntax or semantics of the line are invalid.
-     * @throws SymbolTableException  If there are issues with the symbol table (e.g., scope management).
-     * @throws ScopeManagerException If there are issues with scope management
+     * @param tree The syntax tree of the file.
+     * @param node The METHOD node.
+     * @return True, so the statements of the method are validated.
+     * @throws ParserException      If the method declaration is invalid.
+     * @throws SymbolTableException If there are issues with the symbol table (e.g., scope management).
      */
-    public boolean isValidLine(String line)
-            throws ParserException, SymbolTableException, ScopeManagerException {
-        String trimmedLine = line.trim();
-
-        // Check if the line ends with valid characters
-        if (!trimmedLine.matches(LINE_END_REGEX)) {
-            throw new ParserException(INVALID_ENDLINE_ERROR_MESSAGE + trimmedLine);
-        }
-
-        // Check for valid keywords or variable names
-        Pattern keywordPattern = Pattern.compile(KEYWORDS_REGEX);
-        Matcher keywordMatcher = keywordPattern.matcher(trimmedLine);
-
-        if (keywordMatcher.find()) {
-            String keyword = keywordMatcher.group();
-
-            // Handle method syntax
-            if (keyword.equals(VOID) || methods.containsKey(keyword)) {
-                methodParser.parse(trimmedLine);
-                return true;
-            }
-
-            // Handle "while" syntax
-            if (keyword.equals(WHILE)) {
-                ifAndWhileParser.parse(trimmedLine);
-                return true;
-            }
-
-            // Handle "if" syntax
-            if (keyword.equals(IF)) {
-                ifAndWhileParser.parse(trimmedLine);
-                return true;
-            }
+    @Override
+    public boolean visitMethod(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        methodParser.parse(tree, node);
+        return true;
+    }
 
-            // Handle variable declaration syntax
-            if (keyword.matches(DECLARATION_REGEX)) {
-                declarationParser.parse(trimmedLine);
-                return true;
-            }
+    /**
+     * Validates an "if" or "while" condition and enters its scope.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The IF or WHILE node.
+     * @return True, so the statements of the block are validated.
+     * @throws ParserException      If the condition is invalid.
+     * @throws SymbolTableException If there are issues with the symbol table (e.g., scope management).
+     */
+    @Override
+    public boolean visitIfOrWhile(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        ifAndWhileParser.parse(tree, node);
+        return true;
+    }
 
-            // Handle return statement
-            if (keyword.equals(RETURN)) {
-                Pattern returnPattern = Pattern.compile(RETURN_LINE);
-                Matcher returnMatcher = returnPattern.matcher(trimmedLine);
+    /**
+     * Validates a variable declaration.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The DECLARATION node.
+     * @throws ParserException      If the declaration is invalid.
+     * @throws SymbolTableException If there are issues with the symbol table (e.g., duplicate variables).
+     */
+    @Override
+    public void visitDeclaration(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        declarationParser.parse(tree, node);
+    }
 
-                if (!returnMatcher.matches()) {
-                    throw new ParserException(INVALID_RETURN_STATEMENT_SYNTAX);
-                }
-                if (scopeManager.getMethodsCounter() == 0) {
-                    throw new ParserException(RETURN_OUT_OF_METHOD_SCOPE_ERROR);
-                }
-                return true;
-            }
+    /**
+     * Validates an assignment. An assignment to a method name is a malformed method call.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The ASSIGNMENT node.
+     * @throws ParserException      If the assignment is invalid.
+     * @throws SymbolTableException If there are issues with the symbol table (e.g., final variables).
+     */
+    @Override
+    public void visitAssignment(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        if (methods.contains(tree.id(node))) {
+            throw new ParserException(METHOD_GENERAL_SYNTAX_ERROR);
+        }
+        assignmentsParser.parse(tree, node);
+    }
 
-            // Handle assignment syntax
-            if (keyword.matches(VARIABLE_NAME_REGEX)) {
-                assignmentsParser.parse(trimmedLine);
-                return true;
-            }
+    /**
+     * Validates a method call.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The METHOD_CALL node.
+     * @throws ParserException      If the method call is invalid.
+     * @throws SymbolTableException If there are issues with the symbol table.
+     */
+    @Override
+    public void visitMethodCall(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        methodParser.parse(tree, node);
+    }
 
-            // Handle end of scope
-            if (keyword.equals(END_OF_SCOPE)) {
-                // check there is only one "{":
-                if (trimmedLine.equals(END_OF_SCOPE)) {
-                    scopeManager.exitScope();
-                    return true;
-                }
-            }
+    /**
+     * Validates that a return statement is inside a method.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The RETURN node.
+     * @throws ParserException If the return statement is out of a method scope.
+     */
+    @Override
+    public void visitReturn(SyntaxTree tree, int node) throws ParserException {
+        if (scopeManager.getMethodsCounter() == 0) {
+            throw new ParserException(RETURN_OUT_OF_METHOD_SCOPE_ERROR);
         }
+    }
 
-        // If no valid keyword or pattern matched, throw an exception
-        throw new ParserException(UNRECOGNIZED_INVALIE_LINE_MESSAGE + trimmedLine);
+    /**
+     * Exits the scope of a method, "if" or "while" block at its closing bracket.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The block node.
+     * @throws SymbolTableException  If an error occurs while removing the scope from the symbol table.
+     * @throws ScopeManagerException If there are no scopes to exit.
+     */
+    @Override
+    public void exitBlock(SyntaxTree tree, int node) throws SymbolTableException, ScopeManagerException {
+        scopeManager.exitScope();
     }
 }
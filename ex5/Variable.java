@@ -1,19 +1,30 @@
 package ex5;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import static ex5.util.Constants.*;
 
 /**
  * The Variable class represents a variable with its name, type, assignment status, and immutability.
- * It encapsulates the details of a variable and provides methods to access and modify its properties.
+ * It encapsulates the details of a variable and provides methods to access its properties.
+ * A Variable is immutable: its status is the status it is declared with, and later assignments are
+ * tracked by the symbol table.
  */
 public class Variable {
+    // For every expected type, the bitmask of the VariableType ordinals that are compatible with it:
+    private static final long[] COMPATIBLE_TYPES = new long[VariableType.values().length];
+
+    static {
+        for (VariableType type : VariableType.values()) {
+            COMPATIBLE_TYPES[type.ordinal()] = 1L << type.ordinal();
+        }
+        COMPATIBLE_TYPES[VariableType.DOUBLE.ordinal()] |= 1L << VariableType.INT.ordinal();
+        COMPATIBLE_TYPES[VariableType.BOOLEAN.ordinal()] |=
+                1L << VariableType.INT.ordinal() | 1L << VariableType.DOUBLE.ordinal();
+    }
+
     private final String name; // The name of the variable
     private final VariableType type; // The type of the variable (e.g., INT, DOUBLE, STRING)
     private final Boolean isFinal; // Whether the variable is declared as final (immutable)
-    private AssignmentStatus status; // The assignment status of the variable (e.g., DECLARED, ASSIGNED)
+    private final AssignmentStatus status; // The assignment status of the variable (e.g., DECLARED, ASSIGNED)
 
     /**
      * Constructs a new Variable instance.
@@ -49,7 +60,7 @@ public class Variable {
     }
 
     /**
-     * Gets the current assignment status of the variable.
+     * Gets the assignment status the variable was declared with.
      *
      * @return The assignment status of the variable.
      */
@@ -67,61 +78,17 @@ public class Variable {
     }
 
     /**
-     * Sets the assignment status of the variable.
-     *
-     * @param status The new assignment status to set.
-     */
-    public void setStatus(AssignmentStatus status) {
-        this.status = status;
-    }
-
-    /**
-     * Determines the type of a constant parameter.
-     *
-     * @param parameter The constant parameter string.
-     * @return The VariableType of the constant, or null if invalid.
-     */
-    public static VariableType ConstantParameter(String parameter) {
-        parameter = parameter.trim();
-        Pattern intPattern = Pattern.compile(INT_VALUE_REGEX);
-        Matcher intMatcher = intPattern.matcher(parameter);
-        Pattern doublePattern = Pattern.compile(DOUBLE_VALUE_REGEX);
-        Matcher doubleMatcher = doublePattern.matcher(parameter);
-        Pattern boolPattern = Pattern.compile(BOOLEAN_CONSTANT_REGEX);
-        Matcher boolMatcher = boolPattern.matcher(parameter);
-        Pattern charPattern = Pattern.compile(CHAR_VALUE_REGEX);
-        Matcher charMatcher = charPattern.matcher(parameter);
-        Pattern stringPattern = Pattern.compile(STRING_VALUE_REGEX);
-        Matcher stringMatcher = stringPattern.matcher(parameter);
-
-        if (intMatcher.matches()) {
-            return VariableType.INT;
-        } else if (doubleMatcher.matches()) {
-            return VariableType.DOUBLE;
-        } else if (boolMatcher.matches()) {
-            return VariableType.BOOLEAN;
-        } else if (charMatcher.matches()) {
-            return VariableType.CHAR;
-        } else if (stringMatcher.matches()) {
-            return VariableType.STRING;
-        } else {
-            return null;
-        }
-    }
-
-    /**
-     * Determines if a variable type is compatible with an expected type.
+     * Determines if a variable type is compatible with an expected type: every type is compatible
+     * with itself, an int is compatible with a double, and an int or a double is compatible with a
+     * boolean. This is the single rule for assignments, declarations, method arguments and
+     * conditions, which expect a boolean.
      *
-     * @param actual   The actual type of the variable.
+     * @param actual   The actual type of the variable, or null if it has none.
      * @param expected The expected type for the variable.
      * @return true if the types are compatible, false otherwise.
      */
     public static boolean isTypeCompatible(VariableType actual, VariableType expected) {
-        if (actual == expected) return true;
-        if (expected == VariableType.DOUBLE && actual == VariableType.INT) return true;
-        if (expected == VariableType.BOOLEAN && (actual == VariableType.INT || actual == VariableType.DOUBLE))
-            return true;
-        return false;
+        return actual != null && (COMPATIBLE_TYPES[expected.ordinal()] >>> actual.ordinal() & 1L) != 0;
     }
 
 }
@@ -0,0 +1,279 @@
+package ex5.main;
+
+import ex5.FileReader;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.Stream;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The BatchValidator class validates many sJava files in a single run of the program.
+ * Its arguments are file paths, directories (all the sJava files under them are validated) and
+ * '@' list files (a file holding one path per line). Relative paths in a list file are resolved
+ * against the directory of the list file, not the working directory. Every file is validated
+ * independently, with the same exit codes as a single run, and a "path&lt;TAB&gt;exit code" line is
+ * printed for it. A file whose validation fails unexpectedly gets the IO error code, and the rest
+ * of the batch is still validated.
+ * <p>
+ * Files are validated in parallel on a work-stealing {@link ForkJoinPool}. The options are:
+ * <ul>
+ *     <li>--parallelism=N: the number of worker threads (the number of processors by default).</li>
+ *     <li>--unordered: print every result as soon as it is ready, instead of in input order.</li>
+ * </ul>
+ */
+public class BatchValidator {
+    private static final int NOT_VALIDATED = -1;
+
+    private final int parallelism;
+    private final boolean unordered;
+    private final List<String> paths;
+    private int[] exitCodes;
+
+    /**
+     * Constructs a BatchValidator with the given options and no files.
+     *
+     * @param parallelism The number of worker threads.
+     * @param unordered   Whether results are written as soon as they are ready.
+     */
+    public BatchValidator(int parallelism, boolean unordered) {
+        this.parallelism = parallelism;
+        this.unordered = unordered;
+        this.paths = new ArrayList<>();
+        this.exitCodes = new int[0];
+    }
+
+    /**
+     * Checks whether the given arguments ask for batch mode: several arguments, an option,
+     * a directory or an '@' list file.
+     *
+     * @param args The command-line arguments.
+     * @return True if the arguments should be handled in batch mode, false otherwise.
+     */
+    public static boolean isBatch(String[] args) {
+        return args.length > 1 || (args.length == 1 && (args[0].startsWith(OPTION_PREFIX) ||
+                args[0].startsWith(LIST_FILE_PREFIX) || new File(args[0]).isDirectory()));
+    }
+
+    /**
+     * Validates all the files named by the arguments and prints their exit codes.
+     * Invalid options are an IO error, like an invalid number of arguments in a single run.
+     *
+     * @param args Options, file paths, directories and '@' list files.
+     * @throws IOException If the results can not be written.
+     */
+    public static void main(String[] args) throws IOException {
+        int parallelism = Runtime.getRuntime().availableProcessors();
+        boolean unordered = false;
+        List<String> arguments = new ArrayList<>();
+        for (String argument : args) {
+            if (argument.startsWith(PARALLELISM_OPTION)) {
+                try {
+                    parallelism = Integer.parseInt(argument.substring(PARALLELISM_OPTION.length()));
+                } catch (NumberFormatException e) {
+                    parallelism = 0;
+                }
+            } else if (argument.equals(UNORDERED_OPTION)) {
+                unordered = true;
+            } else if (argument.startsWith(OPTION_PREFIX)) {
+                System.out.println(IO_ERROR_CODE);
+                return;
+            } else {
+                arguments.add(argument);
+            }
+        }
+        if (parallelism < 1) {
+            System.out.println(IO_ERROR_CODE);
+            return;
+        }
+
+        BatchValidator batchValidator = new BatchValidator(parallelism, unordered);
+        for (String argument : arguments) {
+            batchValidator.add(argument);
+        }
+        Writer writer = new BufferedWriter(new OutputStreamWriter(System.out));
+        batchValidator.validateAll(writer);
+        writer.flush();
+    }
+
+    /**
+     * Adds the files named by an argument to the batch. An argument that can not be expanded
+     * (e.g. a missing list file) gets a result of its own with the IO error code.
+     *
+     * @param argument A file path, a directory or an '@' list file.
+     */
+    public void add(String argument) {
+        int first = paths.size();
+        int exitCode = NOT_VALIDATED;
+        try {
+            paths.addAll(expand(argument));
+        } catch (IOException | UncheckedIOException | InvalidPathException e) {
+            paths.add(argument);
+            exitCode = IO_ERROR_CODE;
+        }
+        exitCodes = Arrays.copyOf(exitCodes, paths.size());
+        Arrays.fill(exitCodes, first, paths.size(), exitCode);
+    }
+
+    /**
+     * Validates all the files of the batch in parallel, and writes a result line for each of them.
+     * Results are written in the order the files were added, unless the batch is unordered.
+     *
+     * @param writer The writer of the result lines.
+     * @throws IOException If the results can not be written.
+     */
+    public void validateAll(Writer writer) throws IOException {
+        if (unordered) {
+            // Files that were not validated already have their result:
+            for (int i = 0; i < paths.size(); i++) {
+                if (exitCodes[i] != NOT_VALIDATED) {
+                    writeResult(writer, paths.get(i), exitCodes[i]);
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new ValidationTask(0, paths.size(), unordered ? writer : null));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+
+        if (!unordered) {
+            for (int i = 0; i < paths.size(); i++) {
+                writeResult(writer, paths.get(i), exitCodes[i]);
+            }
+        }
+    }
+
+    /**
+     * The ValidationTask class validates a range of the batch, splitting it in halves so idle
+     * workers can steal the other half. Tasks are never serialized.
+     */
+    @SuppressWarnings("serial")
+    private class ValidationTask extends RecursiveAction {
+        private final int start;
+        private final int end;
+        private final Writer writer;
+
+        /**
+         * Constructs a task over a range of the batch.
+         *
+         * @param start  The index of the first file.
+         * @param end    The index after the last file.
+         * @param writer The writer to stream results to, or null to only store them.
+         */
+        ValidationTask(int start, int end, Writer writer) {
+            this.start = start;
+            this.end = end;
+            this.writer = writer;
+        }
+
+        /**
+         * Validates the range, or splits it if it holds more than one file.
+         */
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ValidationTask(start, middle, writer), new ValidationTask(middle, end, writer));
+                return;
+            }
+            if (start == end || exitCodes[start] != NOT_VALIDATED) {
+                return;
+            }
+            exitCodes[start] = Sjavac.validate(paths.get(start));
+            if (writer != null) {
+                try {
+                    synchronized (writer) {
+                        writeResult(writer, paths.get(start), exitCodes[start]);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Expands a single argument into the paths of the files it names.
+     *
+     * @param argument A file path, a directory or an '@' list file, whose relative entries are
+     *                 resolved against its directory.
+     * @return The paths of the files to validate.
+     * @throws IOException If a list file or a directory can not be read.
+     */
+    private static List<String> expand(String argument) throws IOException {
+        List<String> paths = new ArrayList<>();
+        if (argument.startsWith(LIST_FILE_PREFIX)) {
+            Path listFile = Paths.get(argument.substring(LIST_FILE_PREFIX.length()));
+            Path listDirectory = listFile.getParent();
+            for (String line : FileReader.readLines(listFile.toString())) {
+                if (!line.trim().isEmpty()) {
+                    paths.add(resolve(listDirectory, line.trim()));
+                }
+            }
+        } else if (new File(argument).isDirectory()) {
+            try (Stream<Path> files = Files.walk(Paths.get(argument))) {
+                files.filter(Files::isRegularFile)
+                        .filter(file -> file.toString().endsWith(SJAVA_FILE_SUFFIX))
+                        .map(Path::toString)
+                        .sorted()
+                        .forEach(paths::add);
+            }
+        } else {
+            paths.add(argument);
+        }
+        return paths;
+    }
+
+    /**
+     * Resolves an entry of a list file against the directory of the list file. Absolute entries
+     * are kept, and so are entries that are not valid paths, which then fail as a single file.
+     *
+     * @param listDirectory The directory of the list file, or null for the working directory.
+     * @param entry         The entry.
+     * @return The path of the file to validate.
+     */
+    private static String resolve(Path listDirectory, String entry) {
+        if (listDirectory == null) {
+            return entry;
+        }
+        try {
+            return listDirectory.resolve(entry).toString();
+        } catch (InvalidPathException e) {
+            return entry;
+        }
+    }
+
+    /**
+     * Writes the result line of a single file.
+     *
+     * @param writer   The writer of the result lines.
+     * @param path     The path of the file.
+     * @param exitCode The exit code of the file.
+     * @throws IOException If the line can not be written.
+     */
+    private static void writeResult(Writer writer, String path, int exitCode) throws IOException {
+        writer.write(path);
+        writer.write(RESULT_SEPARATOR);
+        writer.write(Integer.toString(exitCode));
+        writer.write(System.lineSeparator());
+    }
+}
@@ -1,79 +1,105 @@
 package ex5.main;
 
-import ex5.FileReader;
-import ex5.Validator;
-import ex5.parsing.MethodReader;
+import ex5.ChunkedTokenizer;
+import ex5.LineSource;
+import ex5.ValidationContext;
+import ex5.parsing.Lexer;
+import ex5.parsing.LineCache;
 import ex5.parsing.ParserException;
-import ex5.scope_managing.ScopeManager;
+import ex5.parsing.SyntaxTree;
+import ex5.parsing.TokenStream;
+import ex5.parsing.TreeBuilder;
 import ex5.scope_managing.ScopeManagerException;
-import ex5.scope_managing.SymbolTable;
 import ex5.scope_managing.SymbolTableException;
 import ex5.util.Constants;
+import ex5.util.NamePool;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
 
 /**
  * The Sjavac class validates sJava files by parsing, preprocessing,
  * and checking for syntax and semantic correctness.
- * Provides methods to execute validation and handle scopes, variables,
- * and methods within the file.
+ * A Sjavac instance only holds the immutable tokens and name pool of its file: every call to
+ * {@link #run()} validates them with a fresh {@link ValidationContext}, so runs are reentrant and
+ * files can be validated concurrently on different threads.
  */
 public class Sjavac {
-    private final List<String> preprocessedLines;
-    private Map<String, ArrayList<Constants.VariableType>> methodsMap;
-    private final SymbolTable symbolTable;
-    private Validator validator;
-    private ScopeManager scopeManager;
+    private static final int LINE_CACHE_CAPACITY = 1024;
+    private static final long CHUNKED_INPUT_SIZE = 1 << 24;
+
+    private final List<TokenStream> preprocessedLines;
+    private final NamePool names;
 
     /**
      * Constructor for the Sjavac class.
-     * Initializes the necessary components for validating the given sJava file.
+     * Reads, pre-processes and tokenizes the given sJava file, interning its identifiers. Huge files
+     * are memory-mapped and tokenized in parallel chunks.
      *
      * @param filePath The path to the sJava file to be validated.
      * @throws IOException If an error occurs while reading or preprocessing the file.
      */
     public Sjavac(String filePath) throws IOException {
-        // Read and pre-process the file:
-        List<String> allLines = FileReader.readLines(filePath);
-        preprocessedLines = FileReader.preProcessLines(allLines);
-        methodsMap = new HashMap<>();
-        symbolTable = new SymbolTable();
-        scopeManager = new ScopeManager(symbolTable);
+        names = new NamePool();
+        if (Files.size(Paths.get(filePath)) >= CHUNKED_INPUT_SIZE) {
+            preprocessedLines = Collections.unmodifiableList(
+                    ChunkedTokenizer.tokenize(filePath, names, LINE_CACHE_CAPACITY));
+            return;
+        }
+
+        // Stream the code lines of the file, skipping comments and empty lines:
+        LineSource source = LineSource.open(filePath);
+        List<TokenStream> lines = new ArrayList<>();
+        // Repeated lines are lexed once:
+        LineCache lineCache = new LineCache(new Lexer(names), LINE_CACHE_CAPACITY);
+        while (source.next()) {
+            lines.add(lineCache.tokenize(source.source(), source.start(), source.end()));
+        }
+        preprocessedLines = Collections.unmodifiableList(lines);
     }
 
     /**
      * Runs the validation process on the sJava file.
-     * Validates method declarations, scopes, and individual lines of code.
+     * Builds the syntax tree of the file, then validates method declarations, scopes,
+     * and individual statements.
      *
      * @return true if the file is valid, false otherwise.
      * @throws IOException If an IO error occurs during file handling.
      */
     public boolean run() throws IOException {
         try {
-            scopeManager.enterNewScope(Constants.ScopeKind.GLOBAL);
-            methodsMap = MethodReader.readMethods(preprocessedLines, symbolTable);
-            validator = new Validator(symbolTable, scopeManager, methodsMap);
-
-            // For every line, check if valid
-            for (String line : preprocessedLines) {
-                if (!validator.isValidLine(line)) { // Use the validator instance
-                    return false;
-                }
-            }
+            SyntaxTree tree = TreeBuilder.build(preprocessedLines, names);
+            new ValidationContext().validate(tree);
+            return true;
         } catch (ParserException | SymbolTableException | ScopeManagerException e) {
             System.err.println(e.getMessage()); // Log the exception (optional)
             return false; // Return false if any exception occurs
         }
+    }
 
-        // Check there are no un-closed scopes:
-        if (!scopeManager.areInGlobalScope()) {
-            return false;
+    /**
+     * Validates a single sJava file with a fresh symbol table, scope manager and validator.
+     * Any unexpected failure is reported as an IO error of this file only, so in batch mode it
+     * never stops the validation of the other files.
+     *
+     * @param filePath The path to the sJava file to be validated.
+     * @return The exit code of the file: 0 if it is valid, 1 if it has invalid syntax or
+     * semantics, and 2 if an IO error occurred or the validation failed unexpectedly.
+     */
+    public static int validate(String filePath) {
+        try {
+            Sjavac sjavac = new Sjavac(filePath);
+            return sjavac.run() ? Constants.VALID_FILE_CODE : Constants.INVALID_FILE_CODE;
+        } catch (IOException e) {
+            return Constants.IO_ERROR_CODE;
+        } catch (RuntimeException e) {
+            System.err.println(filePath + ": " + e);
+            return Constants.IO_ERROR_CODE;
         }
-        return true;
     }
 
     /**
@@ -83,29 +109,23 @@ public class Sjavac {
      * 0 - The file is valid.
      * 1 - The file has invalid syntax or semantics.
      * 2 - An IO error occurred (e.g., invalid file path or incorrect file format).
+     * When given several paths, a directory or an '@' list file, all the files are validated in
+     * batch mode, and a "path&lt;TAB&gt;exit code" line is printed for each of them.
      *
-     * @param args Command-line arguments. Expects a single argument: the file path.
+     * @param args Command-line arguments. Expects a single file path, or the arguments of the
+     *             batch mode (see {@link BatchValidator}).
      * @throws IOException If an IO error occurs during file handling.
      */
     public static void main(String[] args) throws IOException {
-
-        try {
-            if (args.length != 1) {
-                throw new IOException();
-            }
-
-            String source_file_name = args[0];
-            Sjavac sjavac = new Sjavac(source_file_name);
-            if (sjavac.run()) {
-                // the file is good
-                System.out.println(0);
-            } else {
-                // the format is not good
-                System.out.println(1);
-            }
-        } catch (IOException e) {
+        if (BatchValidator.isBatch(args)) {
+            BatchValidator.main(args);
+            return;
+        }
+        if (args.length != 1) {
             // IO error
-            System.out.println(2);
+            System.out.println(Constants.IO_ERROR_CODE);
+            return;
         }
+        System.out.println(validate(args[0]));
     }
 }
@@ -1,11 +1,9 @@
 package ex5.parsing;
 
+import ex5.Variable;
 import ex5.scope_managing.SymbolTable;
 import ex5.scope_managing.SymbolTableException;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import static ex5.util.Constants.*;
 
 /**
@@ -31,131 +29,67 @@ public class AssignmentParser implements Parser {
      * by commas. Each assignment is validated for:
      * - Correct variable declaration.
      * - Correct type matching between the variable and its assigned value.
-     * - Proper assignment syntax.
+     * The assignments are validated and applied to the symbol table in a single left-to-right pass,
+     * with one symbol table lookup for the type of every assigned variable.
      *
-     * @param line The assignment line to parse and validate.
-     * @throws ParserException      If the assignment line contains errors (e.g., type mismatch,
-     *                              invalid variable, or syntax errors).
+     * @param tree The syntax tree of the file.
+     * @param node The ASSIGNMENT node to parse and validate.
+     * @throws ParserException      If the assignment line contains errors (e.g., type mismatch
+     *                              or invalid variable).
      * @throws SymbolTableException If there are issues with symbol table operations (e.g.,
      *                              accessing undeclared variables).
      */
     @Override
-    public void parse(String line) throws ParserException, SymbolTableException {
-        final String singleAssignment = "(" + VARIABLE_NAME_REGEX + ")\\s*=\\s*("
-                + INT_VALUE_REGEX + "|" + DOUBLE_VALUE_REGEX + "|" + STRING_VALUE_REGEX + "|"
-                + BOOLEAN_VALUE_REGEX + "|" + CHAR_VALUE_REGEX + "|" + VARIABLE_NAME_REGEX + ")";
-        final String multipleAssignments = singleAssignment + "(\\s*,\\s*" + singleAssignment + ")*";
-        final String correctLineRegex = "^" + multipleAssignments + "\\s*;$";
-
-        Pattern pattern = Pattern.compile(correctLineRegex);
-        Matcher matcher = pattern.matcher(line.trim());
-        if (matcher.matches()) {
-            // Remove trailing semicolon
-            String assignmentsPart = line.trim().substring(0, line.trim().length() - 1).trim();
-
-            // Split assignments by commas
-            String[] assignments = assignmentsPart.split(COMMA_SEPARATION_REGEX);
-
-            for (String assignment : assignments) {
-                assignment = assignment.trim();
-                Pattern singlePattern = Pattern.compile(singleAssignment);
-                Matcher singleMatcher = singlePattern.matcher(assignment);
-
-                if (singleMatcher.matches()) {
-                    String variableName = singleMatcher.group(1); // Extract variable name
-                    String value = singleMatcher.group(3);       // Extract assigned value
-
-
-                    // Check if the variable is declared
-                    if (!symbolTable.isVariableDeclared(variableName)) {
-                        throw new ParserException(String.format(VARIABLE_NOT_DECLARED_ERROR, variableName));
-                    }
-
-                    // Validate the variable type
-                    VariableType variableType = symbolTable.getVarType(variableName);
-
-                    // Handle if the value is another variable name
-                    if (isValueVariableName(value)) {
-                        validateVariableNameForType(value, variableType);
-                    } else if (!isValueValidForType(variableType, value)) {
-                        throw new ParserException(String.format(
-                                INVALID_VALUE_ERROR, value, variableName, variableType));
-                    }
+    public void parse(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        TokenStream tokens = tree.tokens(node);
+        for (int assigned = node + 1; assigned < tree.end(node); assigned = tree.end(assigned)) {
+            int variableId = tree.id(assigned);
+            String variableName = tree.text(assigned);
+            int valueIndex = tree.value(assigned);
+
+            // Check if the variable is declared, the type of an undeclared variable is null
+            VariableType variableType = symbolTable.getVarType(variableId);
+            if (variableType == null) {
+                throw new ParserException(String.format(VARIABLE_NOT_DECLARED_ERROR, variableName));
+            }
 
-                    // Mark the variable as assigned in the symbol table
-                    symbolTable.assignVar(variableName, variableType);
-                } else {
-                    throw new ParserException(String.format(WRONG_ASSIGNMENT_FORMAT, assignment));
-                }
+            // Handle if the value is another variable name
+            if (tokens.isVariableName(valueIndex)) {
+                validateVariableNameForType(tokens.id(valueIndex), tokens.text(valueIndex), variableType);
+            } else if (!tokens.isValueOfType(valueIndex, variableType)) {
+                throw new ParserException(String.format(
+                        INVALID_VALUE_ERROR, tokens.text(valueIndex), variableName, variableType));
             }
-        } else {
-            throw new ParserException(String.format(WRONG_ASSIGNMENT_FORMAT, line));
-        }
-    }
 
-    /**
-     * Checks if a given value matches the format of a variable name.
-     *
-     * @param value The value to check.
-     * @return True if the value is a valid variable name, false otherwise.
-     */
-    private boolean isValueVariableName(String value) {
-        return value.matches(VARIABLE_NAME_REGEX);
+            // Mark the variable as assigned in the symbol table
+            symbolTable.assignVar(variableId, variableType);
+        }
     }
 
     /**
      * Validates that a given variable name is declared and that its type matches the expected type.
      *
+     * @param variableId   The name ID of the variable to validate.
      * @param variableName The variable name to validate.
      * @param type         The expected type for the variable.
      * @throws ParserException If the variable is not declared, not assigned, or if the type mismatches.
      */
-    private void validateVariableNameForType(String variableName, VariableType type) throws ParserException {
+    private void validateVariableNameForType(int variableId, String variableName, VariableType type)
+            throws ParserException {
         // If value is a variable, check if it's declared and assigned
-        if (!symbolTable.isVariableDeclared(variableName)) {
+        VariableType variableNameType = symbolTable.getVarType(variableId);
+        if (variableNameType == null) {
             throw new ParserException(String.format(VARIABLE_NOT_DECLARED_ERROR, variableName));
         }
 
-        if (!symbolTable.isVariableAssigned(variableName)) {
+        if (!symbolTable.isVariableAssigned(variableId)) {
             throw new ParserException(String.format(VARIABLE_NOT_ASSIGNED_ERROR, variableName));
         }
 
-        // Ensure the source variable is assigned
-        VariableType variableNameType = symbolTable.getVarType(variableName);
-
         // Allow valid type conversions or exact matches
-        boolean isValidConversion = (variableNameType == type) ||
-                (type == VariableType.DOUBLE && variableNameType == VariableType.INT) ||
-                (type == VariableType.BOOLEAN &&
-                        (variableNameType == VariableType.DOUBLE || variableNameType == VariableType.INT));
-
-        if (!isValidConversion) {
+        if (!Variable.isTypeCompatible(variableNameType, type)) {
             throw new ParserException(String.format(
                     TYPE_MISMATCH_ASSIGN_ERROR, variableName, type, variableNameType));
         }
     }
-
-    /**
-     * Checks if a given value is valid for a specified variable type.
-     *
-     * @param variableType The expected variable type.
-     * @param value        The value to validate.
-     * @return True if the value matches the expected type, false otherwise.
-     */
-    private boolean isValueValidForType(VariableType variableType, String value) {
-        switch (variableType) {
-            case INT:
-                return value.matches(INT_VALUE_REGEX);
-            case DOUBLE:
-                return value.matches(DOUBLE_VALUE_REGEX);
-            case STRING:
-                return value.matches(STRING_VALUE_REGEX);
-            case BOOLEAN:
-                return value.matches(BOOLEAN_VALUE_REGEX);
-            case CHAR:
-                return value.matches(CHAR_VALUE_REGEX);
-            default:
-                return false;
-        }
-    }
 }
\ No newline at end of file
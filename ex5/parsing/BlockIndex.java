@@ -0,0 +1,84 @@
+package ex5.parsing;
+
+import java.util.Arrays;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The BlockIndex class maps every line that opens a block (a method, "if" or "while") to the line
+ * of its matching closing bracket, together with the kind of the block and its nesting depth.
+ * It is filled by the {@link TreeBuilder} in the same linear scan that matches the brackets, so
+ * finding where a block ends never requires scanning its lines again.
+ */
+public class BlockIndex {
+    private static final ScopeKind[] KINDS = ScopeKind.values();
+    private static final int NOT_A_BLOCK = -1;
+
+    private final int[] closeLines;
+    private final byte[] kinds;
+    private final int[] depths;
+
+    /**
+     * Constructs an empty BlockIndex for a file.
+     *
+     * @param lineCount The number of lines in the file.
+     */
+    BlockIndex(int lineCount) {
+        closeLines = new int[lineCount];
+        kinds = new byte[lineCount];
+        depths = new int[lineCount];
+        Arrays.fill(closeLines, NOT_A_BLOCK);
+    }
+
+    /**
+     * Records a line that opens a block. The block is open until {@link #close(int, int)} is called.
+     *
+     * @param openLine The line that opens the block.
+     * @param kind     The kind of the block.
+     * @param depth    The nesting depth of the block, 1 for a method.
+     */
+    void open(int openLine, ScopeKind kind, int depth) {
+        kinds[openLine] = (byte) kind.ordinal();
+        depths[openLine] = depth;
+    }
+
+    /**
+     * Records the closing line of a block.
+     *
+     * @param openLine  The line that opens the block.
+     * @param closeLine The line of the matching closing bracket.
+     */
+    void close(int openLine, int closeLine) {
+        closeLines[openLine] = closeLine;
+    }
+
+    /**
+     * Gets the line of the closing bracket of a block.
+     *
+     * @param openLine The line that opens the block.
+     * @return The line of the matching closing bracket.
+     */
+    public int closeLine(int openLine) {
+        return closeLines[openLine];
+    }
+
+    /**
+     * Gets the kind of a block.
+     *
+     * @param openLine The line that opens the block.
+     * @return The scope kind of the block.
+     */
+    public ScopeKind kind(int openLine) {
+        return KINDS[kinds[openLine]];
+    }
+
+    /**
+     * Gets the nesting depth of a block.
+     *
+     * @param openLine The line that opens the block.
+     * @return The nesting depth, 1 for a method.
+     */
+    public int depth(int openLine) {
+        return depths[openLine];
+    }
+}
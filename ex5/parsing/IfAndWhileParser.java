@@ -5,9 +5,6 @@ import ex5.scope_managing.ScopeManager;
 import ex5.scope_managing.SymbolTable;
 import ex5.scope_managing.SymbolTableException;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 import static ex5.util.Constants.*;
 
 /**
@@ -31,127 +28,64 @@ public class IfAndWhileParser implements Parser {
     }
 
     /**
-     * Parses a line of code for "if" or "while" syntax and validates its correctness.
+     * Parses an "if" or "while" block and validates its condition.
      *
-     * @param line The line of code to parse.
-     * @throws ParserException      If the syntax or semantics of the line are invalid.
+     * @param tree The syntax tree of the file.
+     * @param node The IF or WHILE node to parse.
+     * @throws ParserException      If the semantics of the condition are invalid.
      * @throws SymbolTableException If there are issues with the symbol table (e.g., undeclared variables).
      */
     @Override
-    public void parse(String line) throws ParserException, SymbolTableException {
-        String currentLine = line.trim(); // Trim leading and trailing whitespace
-
+    public void parse(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
         // Check if in Method scope:
         if (scopeManager.getMethodsCounter() < 1) {
             throw new ParserException(OUT_OF_METHOD_SCOPE_ERROR_MESSAGE);
         }
 
-        // Check valid regex:
-        Pattern ifPattern = Pattern.compile(IF_CONDITION_REGEX);
-        Pattern whilePattern = Pattern.compile(WHILE_CONDITION_REGEX);
-        Matcher ifMatcher = ifPattern.matcher(currentLine);
-        Matcher whileMatcher = whilePattern.matcher(currentLine);
-
-        if (!(ifMatcher.matches() || whileMatcher.matches())) {
-            throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
-        }
-
         // Check valid condition:
-        if (ifMatcher.matches()) {
-            scopeManager.enterNewScope(ScopeKind.IF);
-            String condition = ifMatcher.group(1).trim();
-            if (!parseFullCondition(condition)) {
-                throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
-            }
-        } else if (whileMatcher.matches()) {
-            scopeManager.enterNewScope(ScopeKind.WHILE);
-            String condition = whileMatcher.group(1);
-            if (!parseFullCondition(condition)) {
-                throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
-            }
+        scopeManager.enterNewScope(tree.blocks().kind(tree.line(node)));
+        if (!parseFullCondition(tree, node + 1)) {
+            throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
         }
     }
 
     /**
-     * Parses a full condition for validity, including recursive "&&" and "||" conditions.
+     * Parses a full condition for validity: every single condition joined by the "||" and "&&"
+     * nodes of the condition must be valid. The condition is scanned once, left to right, and
+     * stops at the first invalid operand.
      *
-     * @param condition The condition string to validate.
+     * @param tree      The syntax tree of the file.
+     * @param condition The OR node at the root of the condition.
      * @return true if the condition is valid, false otherwise.
-     * @throws ParserException      If the syntax of the condition is invalid.
-     * @throws SymbolTableException If there are issues with variable declarations or assignments.
      */
-    private boolean parseFullCondition(String condition) throws ParserException, SymbolTableException {
-        // Check recursive OR/AND condition:
-        Pattern orPattern = Pattern.compile(OR_CONDITION_REGEX);
-        Matcher orMatcher = orPattern.matcher(condition);
-
-        Pattern andPattern = Pattern.compile(AND_CONDITION_REGEX);
-        Matcher andMatcher = andPattern.matcher(condition);
-        if (recursiveCondition(orMatcher) || recursiveCondition(andMatcher)) {
-            return true;
-        }
-
-        return parseSingleCondition(condition);
-    }
-
-    /**
-     * Recursively validates conditions split by logical "&&" or "||" operators.
-     *
-     * @param matcher A Matcher object for logical operators.
-     * @return true if any conditions are found and validated, false otherwise.
-     * @throws ParserException      If any sub-condition is invalid.
-     * @throws SymbolTableException If there are issues with variable declarations or assignments.
-     */
-    private boolean recursiveCondition(Matcher matcher) throws ParserException, SymbolTableException {
-        boolean foundCondition = false;
-
-        while (matcher.find()) {
-            foundCondition = true;
-            String leftCondition = matcher.group(1).trim();
-            String rightCondition = matcher.group(2).trim();
-
-            if (!parseFullCondition(leftCondition) || !parseFullCondition(rightCondition)) {
-                throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
+    private boolean parseFullCondition(SyntaxTree tree, int condition) {
+        for (int node = condition + 1; node < tree.end(condition); node++) {
+            if (tree.kind(node) == NodeKind.OPERAND && !parseSingleCondition(tree.value(node))) {
+                return false;
             }
         }
-        return foundCondition;
+        return true;
     }
 
     /**
-     * Validates a single condition for correctness.
+     * Validates a single condition for correctness. Constant operands were already checked to be
+     * true/false or a double or int constant when the tree was built.
      *
-     * @param condition The condition string to validate.
+     * @param variableId The name ID of a variable operand, or -1 for a constant operand.
      * @return true if the condition is valid, false otherwise.
-     * @throws SymbolTableException If there are issues with variable declarations or assignments.
      */
-    private boolean parseSingleCondition(String condition) throws SymbolTableException {
-        String[] tokens = condition.trim().split(SPLIT_BY_SPACE_REGEX);
-        if (tokens.length != 1) {
-            return false;
-        }
-        // Check if is true/false
-        String token = tokens[0];
-
+    private boolean parseSingleCondition(int variableId) {
         // Check if is initialized boolean/int/double variable
-        if (symbolTable.isVariableAssigned(token) && isValidType(token)) {
-            return true;
-        }
-
-        // Check if double or int constant
-        VariableType type = Variable.ConstantParameter(condition);
-        return (type == VariableType.BOOLEAN ||
-                type == VariableType.DOUBLE ||
-                type == VariableType.INT);
+        return variableId < 0 || (symbolTable.isVariableAssigned(variableId) && isValidType(variableId));
     }
 
     /**
-     * Checks if a token represents a valid type (boolean, int, or double).
+     * Checks if a variable has a valid condition type (boolean, int, or double).
      *
-     * @param token The token to check.
-     * @return true if the token represents a valid type, false otherwise.
+     * @param variableId The name ID of the variable to check.
+     * @return true if the variable has a valid type, false otherwise.
      */
-    private boolean isValidType(String token) {
-        VariableType type = symbolTable.getVarType(token);
-        return (type == VariableType.BOOLEAN || type == VariableType.DOUBLE || type == VariableType.INT);
+    private boolean isValidType(int variableId) {
+        return Variable.isTypeCompatible(symbolTable.getVarType(variableId), VariableType.BOOLEAN);
     }
 }
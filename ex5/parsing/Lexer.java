@@ -0,0 +1,388 @@
+package ex5.parsing;
+
+import ex5.util.NamePool;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The Lexer class turns a line of s-Java code into a {@link TokenStream} in a single left-to-right
+ * pass. Lexing works directly on the bytes of the line: ASCII characters are classified through a
+ * lookup table, and non-ASCII bytes may only appear inside string and char literals, where whole
+ * UTF-8 sequences are skipped at once. Identifiers are interned to int IDs in the {@link NamePool} of
+ * the file as they are read, so later lookups never need their text.
+ * Literals are classified in the same pass: numbers are read by a small deterministic automaton, and
+ * every literal token gets the bitmask of the variable types it can be assigned to (see
+ * {@link TokenStream#literalTypes(int)}), so no parser classifies a literal again.
+ * A Lexer reuses its scratch buffers between lines, so an instance must not be shared between threads.
+ */
+public class Lexer {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int ASCII_LIMIT = 128;
+    private static final int NO_ID = -1;
+
+    // Character classes of the ASCII table:
+    private static final byte OTHER = 0, SPACE = 1, LETTER = 2, DIGIT = 3, SIGN = 4, POINT = 5,
+            DOUBLE_QUOTE = 6, SINGLE_QUOTE = 7, PUNCTUATION = 8, PIPE = 9, AMPERSAND = 10;
+    private static final byte[] CHAR_CLASS = new byte[ASCII_LIMIT];
+    private static final TokenType[] PUNCTUATION_TYPES = new TokenType[ASCII_LIMIT];
+
+    private static final byte[][] SAVED_WORDS = {
+            INT.getBytes(StandardCharsets.US_ASCII), DOUBLE.getBytes(StandardCharsets.US_ASCII),
+            STRING.getBytes(StandardCharsets.US_ASCII), BOOLEAN.getBytes(StandardCharsets.US_ASCII),
+            CHAR.getBytes(StandardCharsets.US_ASCII), FINAL.getBytes(StandardCharsets.US_ASCII),
+            VOID.getBytes(StandardCharsets.US_ASCII), IF.getBytes(StandardCharsets.US_ASCII),
+            WHILE.getBytes(StandardCharsets.US_ASCII), RETURN.getBytes(StandardCharsets.US_ASCII),
+            TRUE.getBytes(StandardCharsets.US_ASCII), FALSE.getBytes(StandardCharsets.US_ASCII)
+    };
+    // The states of the number automaton, after an optional sign:
+    private static final int NUMBER_START = 0, INTEGER = 1, POINT_AFTER_DIGITS = 2, FRACTION = 3,
+            LEADING_POINT = 4, FRACTION_ONLY = 5, EXTRA_POINT = 6;
+    private static final int DIGIT_INPUT = 0, POINT_INPUT = 1;
+    private static final int[][] NUMBER_TRANSITIONS = {
+            {INTEGER, LEADING_POINT}, // NUMBER_START
+            {INTEGER, POINT_AFTER_DIGITS}, // INTEGER: 5
+            {FRACTION, EXTRA_POINT}, // POINT_AFTER_DIGITS: 5.
+            {FRACTION, EXTRA_POINT}, // FRACTION: 5.2
+            {FRACTION_ONLY, EXTRA_POINT}, // LEADING_POINT: .
+            {FRACTION_ONLY, EXTRA_POINT}, // FRACTION_ONLY: .5
+            {EXTRA_POINT, EXTRA_POINT} // EXTRA_POINT: 5.2.
+    };
+
+    // The variable types a literal can be assigned to, as bitmasks of VariableType ordinals.
+    // A boolean accepts numbers with digits on both sides of the decimal point:
+    private static final int INT_TYPES =
+            typeMask(VariableType.INT, VariableType.DOUBLE, VariableType.BOOLEAN);
+    private static final int NUMBER_TYPES = typeMask(VariableType.DOUBLE, VariableType.BOOLEAN);
+    private static final int[] NUMBER_STATE_TYPES = {
+            0, INT_TYPES, typeMask(VariableType.DOUBLE), NUMBER_TYPES, 0, typeMask(VariableType.DOUBLE), 0
+    };
+    private static final int BOOLEAN_TYPES = typeMask(VariableType.BOOLEAN);
+    private static final int STRING_TYPES = typeMask(VariableType.STRING);
+    private static final int CHAR_TYPES = typeMask(VariableType.CHAR);
+
+    private static final TokenType[] SAVED_WORD_TYPES = {
+            TokenType.INT, TokenType.DOUBLE, TokenType.STRING, TokenType.BOOLEAN, TokenType.CHAR,
+            TokenType.FINAL, TokenType.VOID, TokenType.IF, TokenType.WHILE, TokenType.RETURN,
+            TokenType.TRUE, TokenType.FALSE
+    };
+
+    static {
+        for (int c = 0; c <= ' '; c++) {
+            CHAR_CLASS[c] = SPACE;
+        }
+        for (int c = 'a'; c <= 'z'; c++) {
+            CHAR_CLASS[c] = LETTER;
+            CHAR_CLASS[c - 'a' + 'A'] = LETTER;
+        }
+        CHAR_CLASS['_'] = LETTER;
+        for (int c = '0'; c <= '9'; c++) {
+            CHAR_CLASS[c] = DIGIT;
+        }
+        CHAR_CLASS['+'] = SIGN;
+        CHAR_CLASS['-'] = SIGN;
+        CHAR_CLASS['.'] = POINT;
+        CHAR_CLASS['"'] = DOUBLE_QUOTE;
+        CHAR_CLASS['\''] = SINGLE_QUOTE;
+        CHAR_CLASS['|'] = PIPE;
+        CHAR_CLASS['&'] = AMPERSAND;
+
+        PUNCTUATION_TYPES['('] = TokenType.LEFT_PAREN;
+        PUNCTUATION_TYPES[')'] = TokenType.RIGHT_PAREN;
+        PUNCTUATION_TYPES['{'] = TokenType.LEFT_BRACE;
+        PUNCTUATION_TYPES['}'] = TokenType.RIGHT_BRACE;
+        PUNCTUATION_TYPES[';'] = TokenType.SEMICOLON;
+        PUNCTUATION_TYPES[','] = TokenType.COMMA;
+        PUNCTUATION_TYPES['='] = TokenType.ASSIGN;
+        for (int c = 0; c < ASCII_LIMIT; c++) {
+            if (PUNCTUATION_TYPES[c] != null) {
+                CHAR_CLASS[c] = PUNCTUATION;
+            }
+        }
+    }
+
+    private final NamePool names;
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int[] ids;
+    private byte[] literalTypes;
+    private int size;
+
+    /**
+     * Constructs a Lexer with empty scratch buffers and a new name pool.
+     */
+    public Lexer() {
+        this(new NamePool());
+    }
+
+    /**
+     * Constructs a Lexer with empty scratch buffers.
+     *
+     * @param names The name pool of the file, where identifiers are interned.
+     */
+    public Lexer(NamePool names) {
+        this.names = names;
+        types = new byte[INITIAL_CAPACITY];
+        starts = new int[INITIAL_CAPACITY];
+        ends = new int[INITIAL_CAPACITY];
+        ids = new int[INITIAL_CAPACITY];
+        literalTypes = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the name pool the identifiers are interned in.
+     *
+     * @return The name pool.
+     */
+    public NamePool names() {
+        return names;
+    }
+
+    /**
+     * Tokenizes a single line of code that is already encoded as UTF-8, in place: the tokens refer
+     * to the given bytes, which may hold more than the line and must not be modified afterwards.
+     *
+     * @param source The UTF-8 bytes holding the line.
+     * @param start  The start offset (inclusive) of the line.
+     * @param end    The end offset (exclusive) of the line.
+     * @return The tokens of the line.
+     */
+    public TokenStream tokenize(byte[] source, int start, int end) {
+        size = 0;
+        int position = start;
+        while (position < end) {
+            int current = source[position] & 0xFF;
+            byte charClass = current < ASCII_LIMIT ? CHAR_CLASS[current] : OTHER;
+            switch (charClass) {
+                case SPACE:
+                    position++;
+                    break;
+                case LETTER:
+                    position = readWord(source, position, end);
+                    break;
+                case DIGIT:
+                case POINT:
+                    position = readNumber(source, position, position, end);
+                    break;
+                case SIGN:
+                    position = readNumber(source, position, position + 1, end);
+                    break;
+                case DOUBLE_QUOTE:
+                    position = readString(source, position, end);
+                    break;
+                case SINGLE_QUOTE:
+                    position = readChar(source, position, end);
+                    break;
+                case PUNCTUATION:
+                    add(PUNCTUATION_TYPES[current], position, position + 1);
+                    position++;
+                    break;
+                case PIPE:
+                    position = readOperator(source, position, end, TokenType.OR);
+                    break;
+                case AMPERSAND:
+                    position = readOperator(source, position, end, TokenType.AND);
+                    break;
+                default:
+                    int after = skipCharacter(source, position, end);
+                    add(TokenType.INVALID, position, after);
+                    position = after;
+            }
+        }
+        return new TokenStream(source, start, end, names, Arrays.copyOf(types, size),
+                Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), Arrays.copyOf(ids, size), Arrays.copyOf(literalTypes, size), size);
+    }
+
+    /**
+     * Reads an identifier or a saved word.
+     *
+     * @return The offset after the word.
+     */
+    private int readWord(byte[] source, int start, int end) {
+        int position = start + 1;
+        while (position < end && isWordPart(source[position])) {
+            position++;
+        }
+        TokenType type = wordType(source, start, position);
+        add(type, start, position);
+        if (type == TokenType.IDENTIFIER) {
+            ids[size - 1] = names.intern(source, start, position);
+        } else if (type == TokenType.TRUE || type == TokenType.FALSE) {
+            literalTypes[size - 1] = (byte) BOOLEAN_TYPES;
+        }
+        return position;
+    }
+
+    /**
+     * Reads a number with an optional sign. Digits and points are consumed greedily by the number
+     * automaton, whose final state gives the types the number can be assigned to: an int literal,
+     * a double literal with a single point, or an invalid token.
+     *
+     * @return The offset after the number.
+     */
+    private int readNumber(byte[] source, int start, int digitsStart, int end) {
+        int position = digitsStart;
+        int state = NUMBER_START;
+        while (position < end) {
+            byte current = source[position];
+            if (current >= '0' && current <= '9') {
+                state = NUMBER_TRANSITIONS[state][DIGIT_INPUT];
+            } else if (current == '.') {
+                state = NUMBER_TRANSITIONS[state][POINT_INPUT];
+            } else {
+                break;
+            }
+            position++;
+        }
+
+        int types = NUMBER_STATE_TYPES[state];
+        TokenType type;
+        if (types == 0) {
+            type = TokenType.INVALID;
+        } else {
+            type = state == INTEGER ? TokenType.INT_LITERAL : TokenType.DOUBLE_LITERAL;
+        }
+        // A lone sign is a single invalid character:
+        add(type, start, Math.max(position, start + 1));
+        literalTypes[size - 1] = (byte) types;
+        return Math.max(position, start + 1);
+    }
+
+    /**
+     * Reads a string literal, which may not contain backslashes, quotes or commas.
+     *
+     * @return The offset after the closing quote, or the end of the line if it is not closed.
+     */
+    private int readString(byte[] source, int start, int end) {
+        boolean valid = true;
+        int position = start + 1;
+        while (position < end && source[position] != '"') {
+            byte current = source[position];
+            if (current == '\\' || current == '\'' || current == ',') {
+                valid = false;
+            }
+            position++;
+        }
+        if (position == end) {
+            add(TokenType.INVALID, start, end);
+            return end;
+        }
+        add(valid ? TokenType.STRING_LITERAL : TokenType.INVALID, start, position + 1);
+        if (valid) {
+            literalTypes[size - 1] = (byte) STRING_TYPES;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Reads a char literal, which is a single character other than a backslash, a quote or a
+     * comma between single quotes.
+     *
+     * @return The offset after the literal.
+     */
+    private int readChar(byte[] source, int start, int end) {
+        if (start + 1 < end) {
+            byte current = source[start + 1];
+            int afterCharacter = skipCharacter(source, start + 1, end);
+            boolean legalCharacter = current != '\\' && current != '\'' && current != '"' && current != ',';
+            if (legalCharacter && afterCharacter < end && source[afterCharacter] == '\'') {
+                add(TokenType.CHAR_LITERAL, start, afterCharacter + 1);
+                literalTypes[size - 1] = (byte) CHAR_TYPES;
+                return afterCharacter + 1;
+            }
+        }
+        add(TokenType.INVALID, start, start + 1);
+        return start + 1;
+    }
+
+    /**
+     * Reads a two-character logical operator, or a single invalid character.
+     *
+     * @return The offset after the operator.
+     */
+    private int readOperator(byte[] source, int start, int end, TokenType operator) {
+        if (start + 1 < end && source[start + 1] == source[start]) {
+            add(operator, start, start + 2);
+            return start + 2;
+        }
+        add(TokenType.INVALID, start, start + 1);
+        return start + 1;
+    }
+
+    /**
+     * Skips a single character, which is one byte for ASCII or a whole UTF-8 sequence otherwise.
+     *
+     * @return The offset after the character.
+     */
+    private static int skipCharacter(byte[] source, int start, int end) {
+        int lead = source[start] & 0xFF;
+        int width;
+        if (lead < 0xC0) {
+            width = 1;
+        } else if (lead < 0xE0) {
+            width = 2;
+        } else if (lead < 0xF0) {
+            width = 3;
+        } else {
+            width = 4;
+        }
+        return Math.min(start + width, end);
+    }
+
+    /**
+     * Checks whether a byte may continue an identifier.
+     */
+    private static boolean isWordPart(byte current) {
+        if (current < 0) {
+            return false;
+        }
+        byte charClass = CHAR_CLASS[current];
+        return charClass == LETTER || charClass == DIGIT;
+    }
+
+    /**
+     * Determines whether a word is a saved word or an identifier, without allocating its text.
+     */
+    private static TokenType wordType(byte[] source, int start, int end) {
+        for (int i = 0; i < SAVED_WORDS.length; i++) {
+            if (Arrays.equals(SAVED_WORDS[i], 0, SAVED_WORDS[i].length, source, start, end)) {
+                return SAVED_WORD_TYPES[i];
+            }
+        }
+        return TokenType.IDENTIFIER;
+    }
+
+    /**
+     * Builds the bitmask of a set of variable types.
+     */
+    private static int typeMask(VariableType... types) {
+        int mask = 0;
+        for (VariableType type : types) {
+            mask |= 1 << type.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * Appends a token to the scratch buffers, growing them if needed. The token is not a literal
+     * until its literal types are set.
+     */
+    private void add(TokenType type, int start, int end) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+            ids = Arrays.copyOf(ids, size * 2);
+            literalTypes = Arrays.copyOf(literalTypes, size * 2);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        ids[size] = NO_ID;
+        literalTypes[size] = 0;
+        size++;
+    }
+}
@@ -0,0 +1,143 @@
+package ex5.parsing;
+
+import java.util.Arrays;
+
+/**
+ * The LineCache class memoizes the tokens of repeated lines, such as "return;", "}" or the same
+ * declaration in every method, so each distinct line of a file is lexed once.
+ * Lines are keyed on their trimmed text, which lexes to the same tokens as the line itself, so the
+ * same statement hits the cache at any indentation. Only the tokens are cached: the syntax tree and
+ * all the semantic checks are still done for every line. Building the nodes of a line is a few token
+ * comparisons next to lexing it, and the semantic checks depend on the scopes around the line.
+ * Lines are looked up in place: the hash of a line is computed over its bytes in the shared source,
+ * and it is compared with the cached keys byte by byte, so a hit allocates nothing. The bytes of a
+ * line are only copied when it is inserted. The table chains the lines of every bucket through
+ * primitive arrays, so no entry objects are allocated either.
+ * The cache is bounded and evicts lines with the clock (second chance) algorithm: a hit marks its
+ * line as referenced, and the clock hand evicts the first line that was not referenced since the
+ * hand last passed it.
+ * Token streams hold name IDs of the lexer's name pool, so a cache belongs to the lexer of a single
+ * file and must not be shared between threads.
+ */
+public class LineCache {
+    private static final int NOT_CACHED = -1;
+    private static final int HASH_MULTIPLIER = 31;
+
+    private final Lexer lexer;
+    private final int[] buckets;
+    private final int[] next;
+    private final int[] hashes;
+    private final byte[][] keys;
+    private final TokenStream[] values;
+    private final boolean[] referenced;
+    private int size;
+    private int hand;
+
+    /**
+     * Constructs an empty LineCache.
+     *
+     * @param lexer    The lexer of the file, used to tokenize the lines that are not cached.
+     * @param capacity The maximal number of cached lines.
+     */
+    public LineCache(Lexer lexer, int capacity) {
+        this.lexer = lexer;
+        // At least two buckets per line, and a power of two so a hash is masked into a bucket:
+        this.buckets = new int[Integer.highestOneBit(Math.max(capacity, 1)) << 2];
+        Arrays.fill(buckets, NOT_CACHED);
+        this.next = new int[capacity];
+        this.hashes = new int[capacity];
+        this.keys = new byte[capacity][];
+        this.values = new TokenStream[capacity];
+        this.referenced = new boolean[capacity];
+    }
+
+    /**
+     * Tokenizes a line, or gets its tokens from the cache if the same line was already tokenized.
+     * The line is tokenized in place, see {@link Lexer#tokenize(byte[], int, int)}.
+     *
+     * @param source The UTF-8 bytes holding the line.
+     * @param start  The start offset (inclusive) of the line.
+     * @param end    The end offset (exclusive) of the line.
+     * @return The tokens of the line.
+     */
+    public TokenStream tokenize(byte[] source, int start, int end) {
+        // Trim the line as String.trim() does:
+        while (start < end && (source[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        while (end > start && (source[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        int hash = hash(source, start, end);
+        int bucket = bucket(hash);
+        for (int slot = buckets[bucket]; slot != NOT_CACHED; slot = next[slot]) {
+            if (hashes[slot] == hash && Arrays.equals(keys[slot], 0, keys[slot].length, source, start, end)) {
+                referenced[slot] = true;
+                return values[slot];
+            }
+        }
+
+        TokenStream tokens = lexer.tokenize(source, start, end);
+        int slot = size < keys.length ? size++ : evict();
+        hashes[slot] = hash;
+        keys[slot] = Arrays.copyOfRange(source, start, end);
+        values[slot] = tokens;
+        referenced[slot] = false;
+        next[slot] = buckets[bucket];
+        buckets[bucket] = slot;
+        return tokens;
+    }
+
+    /**
+     * Moves the clock hand to the first line that was not referenced since the hand last passed it,
+     * and evicts it. Referenced lines the hand passes get a second chance.
+     *
+     * @return The slot of the evicted line.
+     */
+    private int evict() {
+        while (referenced[hand]) {
+            referenced[hand] = false;
+            hand = (hand + 1) % keys.length;
+        }
+        int slot = hand;
+        unlink(slot);
+        hand = (hand + 1) % keys.length;
+        return slot;
+    }
+
+    /**
+     * Removes a line from the chain of its bucket.
+     *
+     * @param slot The slot of the line.
+     */
+    private void unlink(int slot) {
+        int bucket = bucket(hashes[slot]);
+        if (buckets[bucket] == slot) {
+            buckets[bucket] = next[slot];
+            return;
+        }
+        int previous = buckets[bucket];
+        while (next[previous] != slot) {
+            previous = next[previous];
+        }
+        next[previous] = next[slot];
+    }
+
+    /**
+     * Hashes a range of bytes, as {@link String#hashCode()} hashes chars.
+     */
+    private static int hash(byte[] source, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = HASH_MULTIPLIER * hash + source[i];
+        }
+        return hash;
+    }
+
+    /**
+     * Gets the bucket of a hash, mixing its high bits into the low bits the mask keeps.
+     */
+    private int bucket(int hash) {
+        return (hash ^ hash >>> 16) & (buckets.length - 1);
+    }
+}
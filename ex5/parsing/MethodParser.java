@@ -4,12 +4,6 @@ import ex5.Variable;
 import ex5.scope_managing.ScopeManager;
 import ex5.scope_managing.SymbolTable;
 import ex5.scope_managing.SymbolTableException;
-import ex5.util.Constants;
-
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static ex5.util.Constants.*;
 
@@ -20,260 +14,150 @@ import static ex5.util.Constants.*;
  * table and scope manager.
  */
 public class MethodParser implements Parser {
-
     private final SymbolTable symbolTable;
     private final ScopeManager scopeManager;
-    private final Map<String, ArrayList<VariableType>> methods;
+    private final MethodTable methods;
 
     /**
      * Constructor for MethodParser.
      *
      * @param symbolTable  The SymbolTable instance for managing variable scopes.
      * @param scopeManager The ScopeManager instance for managing nested scopes.
-     * @param methods      A map of method names to their respective parameter types.
+     * @param methods      The signatures of the methods of the file.
      */
-    public MethodParser(SymbolTable symbolTable, ScopeManager scopeManager,
-                        Map<String, ArrayList<VariableType>> methods) {
+    public MethodParser(SymbolTable symbolTable, ScopeManager scopeManager, MethodTable methods) {
         this.symbolTable = symbolTable;
         this.scopeManager = scopeManager;
         this.methods = methods;
     }
 
     /**
-     * Parses a line of code to determine if it is a method declaration or call, delegating as needed.
+     * Parses a method declaration or a method call, delegating as needed.
      *
-     * @param line The line of code to parse.
-     * @throws ParserException      If the syntax of the line is invalid.
+     * @param tree The syntax tree of the file.
+     * @param node The METHOD or METHOD_CALL node to parse.
+     * @throws ParserException      If the semantics of the method declaration or call are invalid.
      * @throws SymbolTableException If there are issues with variable declarations or scopes.
      */
     @Override
-    public void parse(String line) throws ParserException, SymbolTableException {
-        String currentLine = line.trim();
-
-        Pattern callPattern = Pattern.compile(METHOD_CALL_REGEX);
-        Matcher callMatcher = callPattern.matcher(currentLine);
-        Pattern declarePattern = Pattern.compile(METHOD_DECLARE_REGEX);
-        Matcher declareMatcher = declarePattern.matcher(currentLine);
-
-        if (callMatcher.matches()) {
-            parseMethodCall(callMatcher, line);
-        } else if (declareMatcher.matches()) {
-            parseMethodDeclaration(declareMatcher, line);
+    public void parse(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        if (tree.kind(node) == NodeKind.METHOD_CALL) {
+            parseMethodCall(tree, node);
         } else {
-            throw new ParserException(METHOD_GENERAL_SYNTAX_ERROR);
+            parseMethodDeclaration(tree, node);
         }
     }
 
     /**
      * Parses and validates a method declaration.
      *
-     * @param matcher The Matcher object for the method declaration regex.
-     * @param line    The line of code containing the method declaration.
+     * @param tree The syntax tree of the file.
+     * @param node The METHOD node.
      * @throws ParserException      If the method declaration is invalid.
      * @throws SymbolTableException If there are issues with variable declarations or scopes.
      */
-    private void parseMethodDeclaration(Matcher matcher, String line)
+    private void parseMethodDeclaration(SyntaxTree tree, int node)
             throws ParserException, SymbolTableException {
-        scopeManager.enterNewScope(ScopeKind.METHOD);
-
-        if (matcher.matches()) {
-            String methodName = matcher.group(1);
-            String parametersString = matcher.group(2);
-
-            // Check if not in other method scope
-            if (scopeManager.getMethodsCounter() > 1) {
-                throw new ParserException(METHOD_DECLARE_IN_METHOD_SCOPE_ERROR);
-            }
-
-            // Check if method name is valid
-            Pattern namePattern = Pattern.compile(METHOD_NAME_REGEX);
-            Matcher nameMatcher = namePattern.matcher(methodName);
-            if (!nameMatcher.matches()) {
-                throw new ParserException(INVALID_METHOD_NAME_ERROR);
-            }
+        scopeManager.enterNewScope(tree.blocks().kind(tree.line(node)));
 
-            // Check if method name already exists - already been checked in MethodReader
-            // Check parameters name are valid:
-            String[] parametersAndTypes = parametersString.trim().split("\\s*,\\s*");
-            if (!(parametersAndTypes.length == 1 && parametersAndTypes[0].equals(""))) {
-                for (String parameter : parametersAndTypes) {
-                    Variable variable = parseParameter(parameter);
-                    if (variable != null) {
-                        String parameterName = variable.getName();
-                        // add var to symboltable
-                        symbolTable.addVarToScope(parameterName, variable);
-                    } else {
-                        throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
-                    }
-                }
-            }
-            // Check that ends with "return;" and "{} - alredy in MethodReader
+        // Check if not in other method scope
+        if (scopeManager.getMethodsCounter() > 1) {
+            throw new ParserException(METHOD_DECLARE_IN_METHOD_SCOPE_ERROR);
+        }
 
-        } else {
-            throw new ParserException(METHOD_DECLARE_SYNTAX_ERROR);
+        // Check if method name already exists - already been checked in MethodReader
+        // Parameters syntax was already checked by the TreeBuilder, add them to the method scope:
+        for (int parameter = node + 1; parameter < tree.firstStatement(node); parameter++) {
+            Variable variable = parameterVariable(tree, parameter);
+            // add var to symboltable
+            symbolTable.addVarToScope(tree.id(parameter), variable);
         }
+        // Check that ends with "return;" and "{} - alredy in MethodReader
     }
 
     /**
      * Parses and validates a method call.
      *
-     * @param matcher The Matcher object for the method call regex.
-     * @param line    The line of code containing the method call.
+     * @param tree The syntax tree of the file.
+     * @param node The METHOD_CALL node.
      * @throws ParserException      If the method call is invalid.
      * @throws SymbolTableException If there are issues with variable declarations or scopes.
      */
-    private void parseMethodCall(Matcher matcher, String line) throws ParserException, SymbolTableException {
-        if (matcher.matches()) {
-            String methodName = matcher.group(1);
-            String parametersString = matcher.group(2);
-
-            // Check is in another method scope:
-            if (scopeManager.getMethodsCounter() == 0) {
-                throw new ParserException(METHOD_CALL_OUT_OF_METHOD_SCOPE);
-            }
+    private void parseMethodCall(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        TokenStream tokens = tree.tokens(node);
 
-            // Check method_name exists:
-            if (!methods.containsKey(methodName)) {
-                throw new ParserException(METHOD_NAME_DOESNT_EXIST);
-            }
-
-            // Check parameters have valid name and requested type, and exist:
-            String[] parameters = parametersString.split("\\s*,\\s*");
-            // Check num of parameters ais valid:
-            if (!(parametersString.isEmpty() && methods.get(methodName).isEmpty())) {
-                if (parameters.length != methods.get(methodName).size()) {
-                    throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
-                }
-                for (int i = 0; i < parameters.length; i++) {
-                    String parameterName = parameters[i].trim();
-                    VariableType expectedType = methods.get(methodName).get(i);
-
-                    // Check if constant
-                    VariableType constantType = Variable.ConstantParameter(parameterName);
-                    if (constantType != null) {
-                        if (!Variable.isTypeCompatible(constantType, expectedType)) {
-                            throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
-                        }
-                        continue;
-                    }
+        // Check is in another method scope:
+        if (scopeManager.getMethodsCounter() == 0) {
+            throw new ParserException(METHOD_CALL_OUT_OF_METHOD_SCOPE);
+        }
 
-                    // Check valid name and if exists and was assigned:
-                    if (!symbolTable.isVariableAssigned(parameterName)) {
-                        throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
-                    }
-                    // Check valid type:
-                    VariableType type = symbolTable.getVarType(parameterName);
-                    if (!Variable.isTypeCompatible(type, expectedType)) {
-                        throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
-                    }
-                }
-            }
+        // Check method_name exists:
+        int method = methods.method(tree.id(node));
+        if (method < 0) {
+            throw new ParserException(METHOD_NAME_DOESNT_EXIST);
+        }
 
-        } else {
-            throw new ParserException(METHOD_CALL_SYNTAX_ERROR);
+        // Check num of parameters is valid:
+        if (tree.end(node) - node - 1 != methods.parameterCount(method)) {
+            throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
         }
-    }
 
-    /**
-     * Adds a method declaration to the method map, validating its syntax and parameters.
-     *
-     * @param line    The line of code containing the method declaration.
-     * @param methods The map of methods to update.
-     * @throws ParserException If the method declaration is invalid.
-     */
-    public static void addToMethodMap(String line, Map<String, ArrayList<Constants.VariableType>> methods)
-            throws ParserException {
-        String currentLine = line.trim();
-        Pattern declarePattern = Pattern.compile(METHOD_DECLARE_REGEX);
-        Matcher declareMatcher = declarePattern.matcher(currentLine);
+        // Check parameters have requested type, and exist:
+        for (int argument = node + 1; argument < tree.end(node); argument++) {
+            int index = tree.token(argument);
+            VariableType expectedType = methods.parameterType(method, argument - node - 1);
 
-        if (declareMatcher.matches()) {
-            String methodName = declareMatcher.group(1);
-            //  Check method_name isn't already exists
-            if (methods.containsKey(methodName)) {
-                throw new ParserException(METHOD_NAME_ALREADY_EXIST_ERROR);
-            }
-            // Check valid parameters and create type list for the method
-            String parametersString = declareMatcher.group(2);
-            String[] parameters = parametersString.trim().split(",");
-            ArrayList<VariableType> parameterTypes = new ArrayList<>();
-            if (!(parameters.length == 1 && parameters[0].equals(""))) {
-                for (String parameter : parameters) {
-                    Variable variable = parseParameter(parameter);
-                    if (variable != null) {
-                        parameterTypes.add(variable.getType());
-                    }
+            // Check if constant
+            VariableType constantType = tokens.constantType(index);
+            if (constantType != null) {
+                if (!Variable.isTypeCompatible(constantType, expectedType)) {
+                    throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
                 }
+                continue;
             }
-            methods.put(methodName, parameterTypes);
-        }
-    }
 
-    /**
-     * Parses a parameter declaration and returns a Variable object.
-     *
-     * @param parameter The parameter declaration string.
-     * @return A Variable object representing the parameter.
-     * @throws ParserException If the parameter declaration is invalid.
-     */
-    private static Variable parseParameter(String parameter) throws ParserException {
-        String[] parameterStrings = parameter.trim().split("\\s+");
-        if (parameterStrings.length == 3) {
-            if (parameterStrings[0].equals(FINAL) &&
-                    isValidName(parameterStrings[2])) {
-                String parameterName = parameterStrings[2];
-                VariableType parameterType = parseType(parameterStrings[1]);
-                return new Variable(parameterName, parameterType, AssignmentStatus.ASSIGNED_THIS_SCOPE, true);
-            } else {
+            // Check if exists and was assigned:
+            int variableId = tokens.id(index);
+            if (!symbolTable.isVariableAssigned(variableId)) {
                 throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
             }
-
-        } else if (parameterStrings.length == 2) {
-            if (isValidName(parameterStrings[1])) {
-                String parameterName = parameterStrings[1];
-                VariableType parameterType = parseType(parameterStrings[0]);
-                return new Variable(parameterName, parameterType, AssignmentStatus.ASSIGNED_THIS_SCOPE, false);
-            } else {
+            // Check valid type:
+            VariableType type = symbolTable.getVarType(variableId);
+            if (!Variable.isTypeCompatible(type, expectedType)) {
                 throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
             }
-        } else {
-            throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
         }
     }
 
     /**
-     * Validates a parameter name against the variable naming rules.
+     * Adds a method declaration to the method table.
      *
-     * @param name The parameter name to validate.
-     * @return true if the name is valid, false otherwise.
+     * @param tree    The syntax tree of the file.
+     * @param node    The METHOD node.
+     * @param methods The method table to update.
+     * @throws ParserException If a method with the same name already exists.
      */
-    private static boolean isValidName(String name) {
-        Pattern namePattern = Pattern.compile(VARIABLE_NAME_REGEX);
-        Matcher nameMatcher = namePattern.matcher(name);
-        return nameMatcher.matches();
+    static void addToMethodTable(SyntaxTree tree, int node, MethodTable methods) throws ParserException {
+        //  Check method_name isn't already exists
+        if (!methods.addMethod(tree.id(node))) {
+            throw new ParserException(METHOD_NAME_ALREADY_EXIST_ERROR);
+        }
+        // Add the parameter types of the method
+        for (int parameter = node + 1; parameter < tree.firstStatement(node); parameter++) {
+            methods.addParameter(tree.tokens(parameter).variableType(tree.value(parameter)));
+        }
     }
 
     /**
-     * Parses the type of a parameter and returns its VariableType.
+     * Creates the Variable object of a method parameter.
      *
-     * @param parameterType The type string of the parameter.
-     * @return The corresponding VariableType.
-     * @throws ParserException If the type is invalid.
+     * @param tree      The syntax tree of the file.
+     * @param parameter The PARAMETER node.
+     * @return A Variable object representing the parameter.
      */
-    private static VariableType parseType(String parameterType) throws ParserException {
-        switch (parameterType) {
-            case INT:
-                return VariableType.INT;
-            case DOUBLE:
-                return VariableType.DOUBLE;
-            case STRING:
-                return VariableType.STRING;
-            case CHAR:
-                return VariableType.CHAR;
-            case BOOLEAN:
-                return VariableType.BOOLEAN;
-            default:
-                throw new ParserException(INVALID_TYPE_ERROR + parameterType);
-        }
+    private static Variable parameterVariable(SyntaxTree tree, int parameter) {
+        VariableType parameterType = tree.tokens(parameter).variableType(tree.value(parameter));
+        return new Variable(tree.text(parameter), parameterType, AssignmentStatus.ASSIGNED_THIS_SCOPE,
+                tree.isFinal(parameter));
     }
 }
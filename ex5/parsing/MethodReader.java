@@ -1,121 +1,159 @@
 package ex5.parsing;
 
+import ex5.scope_managing.ScopeManagerException;
 import ex5.scope_managing.SymbolTable;
 import ex5.scope_managing.SymbolTableException;
-import ex5.util.Constants;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import static ex5.util.Constants.*;
 
 /**
- * The MethodReader class is responsible for reading and validating method declarations from a
- * list of code lines.
+ * The MethodReader class is the single structural pass over the top level of the syntax tree,
+ * done before the method bodies are validated.
  * It ensures that:
  * - Methods are correctly declared.
  * - Methods end with a valid "return;" statement.
- * - Brackets in method definitions are balanced.
+ * - Global statements are valid: it declares and assigns the global variables once, so methods
+ * can use globals declared after them, and the method bodies are validated without them.
+ * Only the top level of the tree is visited: method bodies and blocks are skipped.
  */
-public class MethodReader {
+public class MethodReader implements TreeVisitor {
+
+    private final MethodTable methods;
+    private final AssignmentParser assignmentsParser;
+    private final DeclarationParser declarationParser;
+    private final List<Integer> globalAssignments;
 
     /**
-     * Reads and parses method declarations from a list of code lines.
+     * Constructs a MethodReader that declares global variables in the given symbol table.
      *
-     * @param lines       A list of code lines to analyze for method declarations.
+     * @param tree        The syntax tree of the file.
      * @param symbolTable The SymbolTable instance used for managing variable scopes.
-     * @return A map where the keys are method names and the values are lists of parameter types
-     * for each method.
-     * @throws ParserException If a method declaration is invalid or ends improperly.
      */
-    public static Map<String, ArrayList<Constants.VariableType>> readMethods(
-            List<String> lines, SymbolTable symbolTable) throws ParserException, SymbolTableException {
-        Map<String, ArrayList<Constants.VariableType>> methods = new HashMap<>();
-        Pattern declarePattern = Pattern.compile(METHOD_DECLARE_REGEX);
-        Pattern closeBracketPattern = Pattern.compile(CLOSE_BRACKET_REGEX);
-        Pattern openBracketPattern = Pattern.compile(OPEN_BRACKET_REGEX);
-        Pattern returnPattern = Pattern.compile(RETURN_LINE);
-
-        for (int i = 0; i < lines.size(); i++) {
-            String currentLine = lines.get(i).trim();
-
-            Matcher declareMatcher = declarePattern.matcher(currentLine);
-
-            if (declareMatcher.matches()) {
-                // Add the method declaration to the methods map
-                MethodParser.addToMethodMap(currentLine, methods);
-
-                // Check that the method ends with "return;" and has balanced brackets
-                int unclosedBrackets = 1; // Starts with the first opening bracket
-                int currentLineIdx = i + 1;
-
-                while (currentLineIdx < lines.size()) {
-                    String nextLine = lines.get(currentLineIdx).trim();
-
-                    // Count opening brackets
-                    if (openBracketPattern.matcher(nextLine).find()) {
-                        unclosedBrackets++;
-                        currentLineIdx++;
-                        continue;
-                    }
-
-                    // Count closing brackets
-                    if (closeBracketPattern.matcher(nextLine).find()) {
-                        unclosedBrackets--;
-                        if (unclosedBrackets != 0) {
-                            currentLineIdx++;
-                            continue;
-                        }
-                        break; // All brackets are balanced, exit the loop
-                    }
-
-                    currentLineIdx++;
-                }
-
-                // Verify that the last line inside the method is "return;"
-                String lastLineInMethod = lines.get(currentLineIdx - 1).trim();
-                Matcher returnMatcher = returnPattern.matcher(lastLineInMethod);
-                if (!returnMatcher.matches()) {
-                    throw new ParserException(INVALID_METHOD_ENDING_ERROR);
-                }
-
-                // Move the index to the end of the method
-                i = currentLineIdx;
-            }
+    private MethodReader(SyntaxTree tree, SymbolTable symbolTable) {
+        this.methods = new MethodTable(tree.names().size());
+        this.assignmentsParser = new AssignmentParser(symbolTable);
+        this.declarationParser = new DeclarationParser(symbolTable);
+        this.globalAssignments = new ArrayList<>();
+    }
 
-            // while out of declaration:
-            if (i >= lines.size()) {
-                continue;
-            }
-            AssignmentParser assignmentsParser = new AssignmentParser(symbolTable);
-            DeclarationParser declarationParser = new DeclarationParser(symbolTable);
-            currentLine = lines.get(i).trim();
-
-            // Check for valid declaration
-            Pattern keywordPattern = Pattern.compile(KEYWORDS_REGEX);
-            Matcher keywordMatcher = keywordPattern.matcher(currentLine);
-
-            if (keywordMatcher.find()) {
-                String keyword = keywordMatcher.group();
-
-                // Handle variable declaration syntax
-                if (keyword.matches(DECLARATION_REGEX)) {
-                    declarationParser.parse(currentLine);
-                    continue;
-                }
-
-                // Handle assignment syntax
-                if (keyword.matches(VARIABLE_NAME_REGEX)) {
-                    assignmentsParser.parse(currentLine);
-                    continue;
-                }
+    /**
+     * Reads the method declarations and the global variables of a syntax tree.
+     *
+     * @param tree        The syntax tree of the file.
+     * @param symbolTable The SymbolTable instance used for managing variable scopes.
+     * @return The signatures of the methods of the file.
+     * @throws ParserException       If a method declaration is invalid or ends improperly.
+     * @throws SymbolTableException  If a global variable can not be declared or assigned.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    public static MethodTable readMethods(SyntaxTree tree, SymbolTable symbolTable)
+            throws ParserException, SymbolTableException, ScopeManagerException {
+        MethodReader reader = new MethodReader(tree, symbolTable);
+        tree.accept(reader);
+
+        // An assignment to a method name is a malformed method call, even if the method is declared later
+        for (int node : reader.globalAssignments) {
+            if (reader.methods.contains(tree.id(node))) {
+                throw new ParserException(METHOD_GENERAL_SYNTAX_ERROR);
             }
         }
-        return methods;
+        return reader.methods;
     }
-}
 
+    /**
+     * Adds a method declaration to the method table and checks that it ends with "return;".
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The METHOD node.
+     * @return False, the method body is not read.
+     * @throws ParserException If the method name already exists or the method ends improperly.
+     */
+    @Override
+    public boolean visitMethod(SyntaxTree tree, int node) throws ParserException {
+        MethodParser.addToMethodTable(tree, node, methods);
+
+        // Verify that the last line inside the method is "return;", right before its closing bracket
+        int lastLine = tree.blocks().closeLine(tree.line(node)) - 1;
+        if (!tree.lineTokens(lastLine).is(0, TokenType.RETURN)) {
+            throw new ParserException(INVALID_METHOD_ENDING_ERROR);
+        }
+        return false;
+    }
+
+    /**
+     * Rejects an "if" or "while" block out of a method.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The IF or WHILE node.
+     * @return Never returns normally.
+     * @throws ParserException Always, since the block is out of a method scope.
+     */
+    @Override
+    public boolean visitIfOrWhile(SyntaxTree tree, int node) throws ParserException {
+        throw new ParserException(OUT_OF_METHOD_SCOPE_ERROR_MESSAGE);
+    }
+
+    /**
+     * Declares a global variable.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The DECLARATION node.
+     * @throws ParserException      If the declaration is invalid.
+     * @throws SymbolTableException If there are issues with symbol table operations.
+     */
+    @Override
+    public void visitDeclaration(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        declarationParser.parse(tree, node);
+    }
+
+    /**
+     * Assigns a global variable.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The ASSIGNMENT node.
+     * @throws ParserException      If the assignment is invalid.
+     * @throws SymbolTableException If there are issues with symbol table operations.
+     */
+    @Override
+    public void visitAssignment(SyntaxTree tree, int node) throws ParserException, SymbolTableException {
+        assignmentsParser.parse(tree, node);
+        globalAssignments.add(node);
+    }
+
+    /**
+     * Rejects a method call out of a method.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The METHOD_CALL node.
+     * @throws ParserException Always, since the call is out of a method scope.
+     */
+    @Override
+    public void visitMethodCall(SyntaxTree tree, int node) throws ParserException {
+        throw new ParserException(METHOD_CALL_OUT_OF_METHOD_SCOPE);
+    }
+
+    /**
+     * Rejects a return statement out of a method.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The RETURN node.
+     * @throws ParserException Always, since the return statement is out of a method scope.
+     */
+    @Override
+    public void visitReturn(SyntaxTree tree, int node) throws ParserException {
+        throw new ParserException(RETURN_OUT_OF_METHOD_SCOPE_ERROR);
+    }
+
+    /**
+     * Never called, since no block is entered.
+     *
+     * @param tree The syntax tree of the file.
+     * @param node The block node.
+     */
+    @Override
+    public void exitBlock(SyntaxTree tree, int node) {
+    }
+}
@@ -0,0 +1,113 @@
+package ex5.parsing;
+
+import java.util.Arrays;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The MethodTable class holds the signatures of the methods of a file: for every method, the types
+ * of its parameters in order.
+ * Method names are name IDs of the file's {@link ex5.util.NamePool}, which are dense, so the table
+ * maps a name straight to its method through an array indexed by the name ID, without hashing or
+ * probing. The parameter types of all the methods are packed into a single byte array of type
+ * ordinals, and each method owns the range between its offset and the next one.
+ * It is filled by the {@link MethodReader} in its single pass over the top level of the tree, and is
+ * only read afterward, so it may be shared between the threads that validate the method bodies.
+ */
+public class MethodTable {
+    private static final VariableType[] TYPES = VariableType.values();
+    private static final int NOT_A_METHOD = -1;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int[] methodOfName;
+    private int[] offsets;
+    private byte[] parameterTypes;
+    private int methodCount;
+
+    /**
+     * Constructs an empty MethodTable for a file.
+     *
+     * @param nameCount The number of names interned for the file.
+     */
+    MethodTable(int nameCount) {
+        methodOfName = new int[nameCount];
+        Arrays.fill(methodOfName, NOT_A_METHOD);
+        offsets = new int[INITIAL_CAPACITY + 1];
+        parameterTypes = new byte[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds a method without parameters. The parameters are then added in order with
+     * {@link #addParameter(VariableType)}, before the next method is added.
+     *
+     * @param nameId The name ID of the method.
+     * @return True if the method was added, false if a method with the same name already exists.
+     */
+    boolean addMethod(int nameId) {
+        if (contains(nameId)) {
+            return false;
+        }
+        if (methodCount + 1 == offsets.length) {
+            offsets = Arrays.copyOf(offsets, methodCount * 2 + 1);
+        }
+        methodOfName[nameId] = methodCount;
+        offsets[methodCount + 1] = offsets[methodCount];
+        methodCount++;
+        return true;
+    }
+
+    /**
+     * Adds a parameter to the last added method.
+     *
+     * @param type The type of the parameter.
+     */
+    void addParameter(VariableType type) {
+        int end = offsets[methodCount];
+        if (end == parameterTypes.length) {
+            parameterTypes = Arrays.copyOf(parameterTypes, end * 2);
+        }
+        parameterTypes[end] = (byte) type.ordinal();
+        offsets[methodCount] = end + 1;
+    }
+
+    /**
+     * Checks whether a name is the name of a method.
+     *
+     * @param nameId The name ID.
+     * @return True if a method has this name, false otherwise.
+     */
+    public boolean contains(int nameId) {
+        return method(nameId) != NOT_A_METHOD;
+    }
+
+    /**
+     * Gets the method with a given name.
+     *
+     * @param nameId The name ID of the method.
+     * @return The index of the method, or -1 if no method has this name.
+     */
+    public int method(int nameId) {
+        return nameId < 0 ? NOT_A_METHOD : methodOfName[nameId];
+    }
+
+    /**
+     * Gets the number of parameters of a method.
+     *
+     * @param method The index of the method.
+     * @return The number of parameters.
+     */
+    public int parameterCount(int method) {
+        return offsets[method + 1] - offsets[method];
+    }
+
+    /**
+     * Gets the type of a parameter of a method.
+     *
+     * @param method    The index of the method.
+     * @param parameter The index of the parameter, from 0.
+     * @return The type of the parameter.
+     */
+    public VariableType parameterType(int method, int parameter) {
+        return TYPES[parameterTypes[offsets[method] + parameter]];
+    }
+}
@@ -3,19 +3,21 @@ package ex5.parsing;
 import ex5.scope_managing.SymbolTableException;
 
 /**
- * The Parser interface defines a contract for parsing a line of code.
+ * The Parser interface defines a contract for parsing a statement of the code.
  * Classes implementing this interface must provide an implementation for the {@code parse} method
- * to validate and process a given line of code.
+ * to validate the semantics of a node of the {@link SyntaxTree}, whose syntax was already
+ * checked by the {@link TreeBuilder}.
  */
 public interface Parser {
 
     /**
-     * Parses and validates a single line of code.
+     * Parses and validates a single statement of code.
      *
-     * @param line The line of code to be parsed.
+     * @param tree The syntax tree of the file.
+     * @param node The node of the statement to be parsed.
      * @throws ParserException      If the syntax or semantics of the line are invalid.
      * @throws SymbolTableException If there are issues related to the symbol table, such as scope management.
      */
-    void parse(String line)
+    void parse(SyntaxTree tree, int node)
             throws ParserException, SymbolTableException; // No boolean, exceptions handle errors
 }
@@ -0,0 +1,328 @@
+package ex5.parsing;
+
+import ex5.scope_managing.ScopeManagerException;
+import ex5.scope_managing.SymbolTableException;
+import ex5.util.NamePool;
+
+import java.util.Arrays;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The SyntaxTree class is a compact, array-backed syntax tree of a whole s-Java file, built once by
+ * the {@link TreeBuilder}. Nodes are stored in pre-order in parallel arrays, so the children of a
+ * node are the nodes that follow it, up to {@link #end(int)}:
+ * <pre>
+ * for (int child = node + 1; child &lt; tree.end(node); child = tree.end(child)) { ... }
+ * </pre>
+ * Every node refers to a line of the file and to a token of that line. The meaning of the token and
+ * of the extra value of a node depends on its kind:
+ * <ul>
+ *     <li>METHOD: the method name.</li>
+ *     <li>PARAMETER: the parameter name, and the index of its type token.</li>
+ *     <li>IF / WHILE: the keyword.</li>
+ *     <li>DECLARATION: the type keyword.</li>
+ *     <li>DECLARED_VARIABLE / ASSIGNED_VARIABLE: the variable name, and the index of the assigned
+ *     value token (or -1 if there is none).</li>
+ *     <li>METHOD_CALL: the method name. ARGUMENT: the argument itself.</li>
+ *     <li>OPERAND: the operand itself, and the name pool ID of a variable operand (or -1 if the
+ *     operand is a constant, which the builder already checked).</li>
+ * </ul>
+ * The lines that open blocks are also indexed by a {@link BlockIndex}, built in the same scan, and
+ * the identifiers of the lines are interned in the {@link NamePool} of the file.
+ */
+public class SyntaxTree {
+    private static final NodeKind[] KINDS = NodeKind.values();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ROOT = 0;
+
+    private final TokenStream[] lines;
+    private final NamePool names;
+    private final BlockIndex blocks;
+    private byte[] kinds;
+    private int[] lineIndices;
+    private int[] tokens;
+    private int[] values;
+    private int[] ends;
+    private int size;
+
+    /**
+     * Constructs an empty SyntaxTree over the given lines.
+     *
+     * @param lines  The tokenized lines of the file.
+     * @param names  The name pool the identifiers of the lines are interned in.
+     * @param blocks The block index of the lines.
+     */
+    SyntaxTree(TokenStream[] lines, NamePool names, BlockIndex blocks) {
+        this.lines = lines;
+        this.names = names;
+        this.blocks = blocks;
+        kinds = new byte[INITIAL_CAPACITY];
+        lineIndices = new int[INITIAL_CAPACITY];
+        tokens = new int[INITIAL_CAPACITY];
+        values = new int[INITIAL_CAPACITY];
+        ends = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Appends a node to the tree. The node is open until {@link #close(int)} is called, and every
+     * node appended in the meantime is one of its descendants.
+     *
+     * @param kind  The node kind.
+     * @param line  The index of the line of the node.
+     * @param token The index of the token of the node.
+     * @param value The extra value of the node.
+     * @return The new node.
+     */
+    int add(NodeKind kind, int line, int token, int value) {
+        if (size == kinds.length) {
+            kinds = Arrays.copyOf(kinds, size * 2);
+            lineIndices = Arrays.copyOf(lineIndices, size * 2);
+            tokens = Arrays.copyOf(tokens, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+            ends = Arrays.copyOf(ends, size * 2);
+        }
+        kinds[size] = (byte) kind.ordinal();
+        lineIndices[size] = line;
+        tokens[size] = token;
+        values[size] = value;
+        ends[size] = size + 1;
+        return size++;
+    }
+
+    /**
+     * Closes a node, making all the nodes appended after it its descendants.
+     *
+     * @param node The node to close.
+     */
+    void close(int node) {
+        ends[node] = size;
+    }
+
+    /**
+     * Gets the root of the tree, whose children are the top level statements of the file.
+     *
+     * @return The FILE node.
+     */
+    public int root() {
+        return ROOT;
+    }
+
+    /**
+     * Gets the number of nodes in the tree.
+     *
+     * @return The number of nodes.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the kind of a node.
+     *
+     * @param node The node.
+     * @return The node kind.
+     */
+    public NodeKind kind(int node) {
+        return KINDS[kinds[node]];
+    }
+
+    /**
+     * Gets the index of the line a node was parsed from.
+     *
+     * @param node The node.
+     * @return The line index.
+     */
+    public int line(int node) {
+        return lineIndices[node];
+    }
+
+    /**
+     * Gets the index of the main token of a node in its line.
+     *
+     * @param node The node.
+     * @return The token index.
+     */
+    public int token(int node) {
+        return tokens[node];
+    }
+
+    /**
+     * Gets the extra value of a node.
+     *
+     * @param node The node.
+     * @return The value.
+     */
+    public int value(int node) {
+        return values[node];
+    }
+
+    /**
+     * Gets the node that follows the last descendant of a node.
+     *
+     * @param node The node.
+     * @return The end of the node's subtree.
+     */
+    public int end(int node) {
+        return ends[node];
+    }
+
+    /**
+     * Gets the block index of the file.
+     *
+     * @return The block index.
+     */
+    public BlockIndex blocks() {
+        return blocks;
+    }
+
+    /**
+     * Gets the tokens of a line of the file.
+     *
+     * @param line The line index.
+     * @return The tokens of the line.
+     */
+    public TokenStream lineTokens(int line) {
+        return lines[line];
+    }
+
+    /**
+     * Gets the tokens of the line a node was parsed from.
+     *
+     * @param node The node.
+     * @return The tokens of the node's line.
+     */
+    public TokenStream tokens(int node) {
+        return lines[lineIndices[node]];
+    }
+
+    /**
+     * Gets the name pool the identifiers of the file are interned in.
+     *
+     * @return The name pool.
+     */
+    public NamePool names() {
+        return names;
+    }
+
+    /**
+     * Gets the name pool ID of the main token of a node.
+     *
+     * @param node A node whose main token is an identifier.
+     * @return The ID of the identifier.
+     */
+    public int id(int node) {
+        return lines[lineIndices[node]].id(tokens[node]);
+    }
+
+    /**
+     * Gets the text of the main token of a node.
+     *
+     * @param node The node.
+     * @return The token text.
+     */
+    public String text(int node) {
+        return lines[lineIndices[node]].text(tokens[node]);
+    }
+
+    /**
+     * Checks whether a declaration or a parameter node is declared as final.
+     *
+     * @param node A DECLARATION or PARAMETER node.
+     * @return True if the type of the node is preceded by 'final', false otherwise.
+     */
+    public boolean isFinal(int node) {
+        int typeIndex = kind(node) == NodeKind.PARAMETER ? values[node] : tokens[node];
+        return tokens(node).is(typeIndex - 1, TokenType.FINAL);
+    }
+
+    /**
+     * Gets the first statement inside a block, skipping its parameters or condition.
+     *
+     * @param block A METHOD, IF or WHILE node.
+     * @return The first statement of the block, or the end of the block if it is empty.
+     */
+    public int firstStatement(int block) {
+        int child = block + 1;
+        while (child < ends[block] &&
+                (kinds[child] == NodeKind.PARAMETER.ordinal() || kinds[child] == NodeKind.OR.ordinal())) {
+            child = ends[child];
+        }
+        return child;
+    }
+
+    /**
+     * Walks the statements of the tree in source order, without recursion. Blocks are entered
+     * through the visitor, and their statements are visited only if the visitor asks for it.
+     *
+     * @param visitor The visitor to call for every statement.
+     * @throws ParserException       If the visitor finds invalid syntax or semantics.
+     * @throws SymbolTableException  If the visitor has symbol table issues.
+     * @throws ScopeManagerException If the visitor has scope management issues.
+     */
+    public void accept(TreeVisitor visitor)
+            throws ParserException, SymbolTableException, ScopeManagerException {
+        accept(visitor, ROOT + 1, ends[ROOT]);
+    }
+
+    /**
+     * Walks the statements in a range of sibling nodes in source order, without recursion.
+     *
+     * @param visitor The visitor to call for every statement.
+     * @param first   The first statement of the range.
+     * @param end     The node after the last statement of the range.
+     * @throws ParserException       If the visitor finds invalid syntax or semantics.
+     * @throws SymbolTableException  If the visitor has symbol table issues.
+     * @throws ScopeManagerException If the visitor has scope management issues.
+     */
+    public void accept(TreeVisitor visitor, int first, int end)
+            throws ParserException, SymbolTableException, ScopeManagerException {
+        int[] openBlocks = new int[INITIAL_CAPACITY];
+        int depth = 0;
+        int node = first;
+        while (true) {
+            // Exit every block that ends before the current node
+            while (depth > 0 && node == ends[openBlocks[depth - 1]]) {
+                visitor.exitBlock(this, openBlocks[--depth]);
+            }
+            if (node >= end) {
+                return;
+            }
+
+            boolean enterBlock = false;
+            switch (kind(node)) {
+                case METHOD:
+                    enterBlock = visitor.visitMethod(this, node);
+                    break;
+                case IF:
+                case WHILE:
+                    enterBlock = visitor.visitIfOrWhile(this, node);
+                    break;
+                case DECLARATION:
+                    visitor.visitDeclaration(this, node);
+                    break;
+                case ASSIGNMENT:
+                    visitor.visitAssignment(this, node);
+                    break;
+                case METHOD_CALL:
+                    visitor.visitMethodCall(this, node);
+                    break;
+                case RETURN:
+                    visitor.visitReturn(this, node);
+                    break;
+                default:
+                    break;
+            }
+
+            if (enterBlock) {
+                if (depth == openBlocks.length) {
+                    openBlocks = Arrays.copyOf(openBlocks, depth * 2);
+                }
+                openBlocks[depth++] = node;
+                node = firstStatement(node);
+            } else {
+                node = ends[node];
+            }
+        }
+    }
+}
@@ -0,0 +1,250 @@
+package ex5.parsing;
+
+import ex5.util.NamePool;
+
+import java.nio.charset.StandardCharsets;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The TokenStream class holds the tokens of a single line, as produced by the {@link Lexer}.
+ * Tokens are stored in parallel arrays (type, start offset and end offset) over the bytes of the
+ * line, so reading a token type or comparing a token to a saved word does not allocate.
+ * Identifier tokens also hold their ID in the {@link NamePool} of the file, which is what the symbol
+ * and method tables are keyed by, and literal tokens hold the bitmask of the variable types they can
+ * be assigned to, computed once by the lexer. The text of any other token is only materialized when
+ * a parser asks for it.
+ */
+public class TokenStream {
+    private static final TokenType[] TYPES = TokenType.values();
+    private static final VariableType[] VARIABLE_TYPES = VariableType.values();
+
+    private final byte[] source;
+    private final int lineStart;
+    private final int lineEnd;
+    private final NamePool names;
+    private final byte[] types;
+    private final int[] starts;
+    private final int[] ends;
+    private final int[] ids;
+    private final byte[] literalTypes;
+    private final int size;
+
+    /**
+     * Constructs a TokenStream over the given line.
+     *
+     * @param source    The bytes the line and token offsets refer to.
+     * @param lineStart The start offset (inclusive) of the line in the source.
+     * @param lineEnd   The end offset (exclusive) of the line in the source.
+     * @param names     The name pool the identifiers are interned in.
+     * @param types  The token types, as {@link TokenType} ordinals.
+     * @param starts The start offset (inclusive) of every token in the source.
+     * @param ends   The end offset (exclusive) of every token in the source.
+     * @param ids          The name pool ID of every identifier token, and -1 for other tokens.
+     * @param literalTypes The bitmask of the types every literal token can be assigned to, and 0
+     *                     for other tokens.
+     * @param size         The number of tokens.
+     */
+    TokenStream(byte[] source, int lineStart, int lineEnd, NamePool names, byte[] types, int[] starts,
+                int[] ends, int[] ids, byte[] literalTypes, int size) {
+        this.source = source;
+        this.lineStart = lineStart;
+        this.lineEnd = lineEnd;
+        this.names = names;
+        this.types = types;
+        this.starts = starts;
+        this.ends = ends;
+        this.ids = ids;
+        this.literalTypes = literalTypes;
+        this.size = size;
+    }
+
+    /**
+     * Gets the original line of the tokens. The line is decoded from the source on every call, since
+     * it is only needed for error messages.
+     *
+     * @return The line.
+     */
+    public String line() {
+        return new String(source, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Gets the number of tokens in the line.
+     *
+     * @return The number of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the type of the token at the given index.
+     *
+     * @param index The token index.
+     * @return The token type, or null if the index is past the last token.
+     */
+    public TokenType type(int index) {
+        return index < size ? TYPES[types[index]] : null;
+    }
+
+    /**
+     * Checks whether the token at the given index has the given type.
+     *
+     * @param index The token index.
+     * @param type  The expected token type.
+     * @return True if the token exists and has the given type, false otherwise.
+     */
+    public boolean is(int index, TokenType type) {
+        return index >= 0 && index < size && types[index] == type.ordinal();
+    }
+
+    /**
+     * Checks whether any token in the line has the given type.
+     *
+     * @param type The token type to look for.
+     * @return True if such a token exists, false otherwise.
+     */
+    public boolean contains(TokenType type) {
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type.ordinal()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Gets the start offset of the token at the given index.
+     *
+     * @param index The token index.
+     * @return The start offset (inclusive) of the token in the source.
+     */
+    public int start(int index) {
+        return starts[index];
+    }
+
+    /**
+     * Gets the end offset of the token at the given index.
+     *
+     * @param index The token index.
+     * @return The end offset (exclusive) of the token in the source.
+     */
+    public int end(int index) {
+        return ends[index];
+    }
+
+    /**
+     * Gets the name pool ID of the identifier token at the given index.
+     *
+     * @param index The token index.
+     * @return The ID of the identifier, or -1 if the token is not an identifier.
+     */
+    public int id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Gets the text of the token at the given index. The text of an identifier is taken from the
+     * name pool, without allocating.
+     *
+     * @param index The token index.
+     * @return The token text.
+     */
+    public String text(int index) {
+        if (ids[index] >= 0) {
+            return names.name(ids[index]);
+        }
+        return new String(source, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks whether the token at the given index is a legal variable name, meaning an identifier
+     * that starts with a letter, or with an underscore followed by a letter or a digit.
+     *
+     * @param index The token index.
+     * @return True if the token is a legal variable name, false otherwise.
+     */
+    public boolean isVariableName(int index) {
+        if (!is(index, TokenType.IDENTIFIER)) {
+            return false;
+        }
+        int start = starts[index];
+        return source[start] != '_' || (ends[index] - start > 1 && source[start + 1] != '_');
+    }
+
+    /**
+     * Checks whether the token at the given index is a legal method name, meaning an identifier
+     * that starts with a letter.
+     *
+     * @param index The token index.
+     * @return True if the token is a legal method name, false otherwise.
+     */
+    public boolean isMethodName(int index) {
+        return is(index, TokenType.IDENTIFIER) && source[starts[index]] != '_';
+    }
+
+    /**
+     * Gets the variable type named by a type keyword token.
+     *
+     * @param index The token index.
+     * @return The variable type, or null if the token is not a type keyword.
+     */
+    public VariableType variableType(int index) {
+        if (index >= size) {
+            return null;
+        }
+        switch (TYPES[types[index]]) {
+            case INT:
+                return VariableType.INT;
+            case DOUBLE:
+                return VariableType.DOUBLE;
+            case STRING:
+                return VariableType.STRING;
+            case BOOLEAN:
+                return VariableType.BOOLEAN;
+            case CHAR:
+                return VariableType.CHAR;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Gets the set of variable types the literal at the given index can be assigned to, as a bitmask
+     * of {@link VariableType} ordinals. An int accepts integers, a double accepts any number, a
+     * boolean accepts true, false and numbers with digits on both sides of the decimal point, and
+     * the other types accept only their own literals.
+     *
+     * @param index The token index.
+     * @return The bitmask of types, or 0 if the token is not a literal.
+     */
+    public int literalTypes(int index) {
+        return index >= 0 && index < size ? literalTypes[index] : 0;
+    }
+
+    /**
+     * Determines the type of a constant token, the same way a method argument or a condition
+     * constant is typed: integers are INT, other numbers are DOUBLE and true/false are BOOLEAN.
+     * This is the narrowest type the literal can be assigned to.
+     *
+     * @param index The token index.
+     * @return The VariableType of the constant, or null if the token is not a constant.
+     */
+    public VariableType constantType(int index) {
+        int mask = literalTypes(index);
+        return mask == 0 ? null : VARIABLE_TYPES[Integer.numberOfTrailingZeros(mask)];
+    }
+
+    /**
+     * Checks whether the token at the given index is a literal that can be assigned to a variable
+     * of the given type.
+     *
+     * @param index        The token index.
+     * @param variableType The type of the assigned variable.
+     * @return True if the literal is valid for the type, false otherwise.
+     */
+    public boolean isValueOfType(int index, VariableType variableType) {
+        return (literalTypes(index) & (1 << variableType.ordinal())) != 0;
+    }
+}
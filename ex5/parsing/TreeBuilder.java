@@ -0,0 +1,440 @@
+package ex5.parsing;
+
+import ex5.Variable;
+import ex5.util.NamePool;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The TreeBuilder class builds the {@link SyntaxTree} of a file in a single pass over its
+ * lines. All the syntax checks of s-Java are done here, once per line, so the parsers that walk the
+ * tree afterwards only deal with semantics (scopes, types and assignments).
+ * Nested blocks are tracked with an explicit stack instead of recursion, so deeply nested code
+ * cannot overflow the call stack.
+ */
+public class TreeBuilder {
+    private static final int PARAMETERS_START = 3;
+    private static final int CONDITION_START = 2;
+    private static final int ARGUMENTS_START = 2;
+    private static final int INITIAL_DEPTH = 16;
+
+    // The line builder of every first token, indexed by the TokenType ordinal, or null if no
+    // statement starts with the token:
+    private static final LineBuilder[] LINE_BUILDERS = new LineBuilder[TokenType.values().length];
+
+    static {
+        register(TreeBuilder::buildMethod, TokenType.VOID);
+        register(TreeBuilder::buildIfOrWhile, TokenType.IF, TokenType.WHILE);
+        register(TreeBuilder::buildDeclaration, TokenType.INT, TokenType.DOUBLE, TokenType.STRING,
+                TokenType.BOOLEAN, TokenType.CHAR, TokenType.FINAL);
+        register(TreeBuilder::buildReturn, TokenType.RETURN);
+        register(TreeBuilder::buildCallOrAssignment, TokenType.IDENTIFIER);
+        register(TreeBuilder::buildScopeEnd, TokenType.RIGHT_BRACE);
+    }
+
+    private final TokenStream[] lines;
+    private final SyntaxTree tree;
+    private final BlockIndex blocks;
+    private int[] openBlocks;
+    private int depth;
+
+    /**
+     * Constructs a TreeBuilder over the given lines.
+     *
+     * @param lines The tokenized lines of the file.
+     * @param names The name pool the identifiers of the lines are interned in.
+     */
+    private TreeBuilder(TokenStream[] lines, NamePool names) {
+        this.lines = lines;
+        this.blocks = new BlockIndex(lines.length);
+        this.tree = new SyntaxTree(lines, names, blocks);
+        this.openBlocks = new int[INITIAL_DEPTH];
+    }
+
+    /**
+     * Builds the syntax tree of a file.
+     *
+     * @param lines The tokenized lines of the file, without comments and empty lines.
+     * @param names The name pool the identifiers of the lines are interned in.
+     * @return The syntax tree of the file.
+     * @throws ParserException If a line has invalid syntax, or if the brackets are not balanced.
+     */
+    public static SyntaxTree build(List<TokenStream> lines, NamePool names) throws ParserException {
+        TreeBuilder builder = new TreeBuilder(lines.toArray(new TokenStream[0]), names);
+        builder.buildFile();
+        return builder.tree;
+    }
+
+    /**
+     * The LineBuilder interface builds the node of a line, given the first token it was registered for.
+     */
+    private interface LineBuilder {
+        /**
+         * Builds the node of a line.
+         *
+         * @param builder The builder of the tree.
+         * @param line    The index of the line.
+         * @param tokens  The tokens of the line.
+         * @throws ParserException If the syntax of the line is invalid.
+         */
+        void build(TreeBuilder builder, int line, TokenStream tokens) throws ParserException;
+    }
+
+    /**
+     * Registers the line builder of the statements that start with the given tokens.
+     *
+     * @param lineBuilder The line builder.
+     * @param firstTokens The first tokens of the statements it builds.
+     */
+    private static void register(LineBuilder lineBuilder, TokenType... firstTokens) {
+        for (TokenType firstToken : firstTokens) {
+            LINE_BUILDERS[firstToken.ordinal()] = lineBuilder;
+        }
+    }
+
+    /**
+     * Builds the root of the tree and all the statements of the file.
+     *
+     * @throws ParserException If a line has invalid syntax, or if the brackets are not balanced.
+     */
+    private void buildFile() throws ParserException {
+        int root = tree.add(NodeKind.FILE, 0, 0, lines.length);
+        pushBlock(root);
+        for (int line = 0; line < lines.length; line++) {
+            buildLine(line);
+        }
+        if (depth > 1) {
+            throw new ParserException(UNCLOSED_SCOPE_ERROR);
+        }
+        tree.close(root);
+    }
+
+    /**
+     * Builds the node of a single line with the line builder registered for its first token.
+     *
+     * @param line The index of the line.
+     * @throws ParserException If the syntax of the line is invalid.
+     */
+    private void buildLine(int line) throws ParserException {
+        TokenStream tokens = lines[line];
+
+        // Check if the line ends with valid characters
+        TokenType lastToken = tokens.type(tokens.size() - 1);
+        if (lastToken != TokenType.LEFT_BRACE && lastToken != TokenType.RIGHT_BRACE &&
+                lastToken != TokenType.SEMICOLON) {
+            throw new ParserException(INVALID_ENDLINE_ERROR_MESSAGE + tokens.line().trim());
+        }
+
+        LineBuilder lineBuilder = LINE_BUILDERS[tokens.type(0).ordinal()];
+        if (lineBuilder == null) {
+            // If no valid keyword or pattern matched, throw an exception
+            throw unrecognizedLine(tokens);
+        }
+        lineBuilder.build(this, line, tokens);
+    }
+
+    /**
+     * Builds a return statement: return;
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the return statement is invalid.
+     */
+    private void buildReturn(int line, TokenStream tokens) throws ParserException {
+        if (tokens.size() != 2 || !tokens.is(1, TokenType.SEMICOLON)) {
+            throw new ParserException(INVALID_RETURN_STATEMENT_SYNTAX);
+        }
+        tree.add(NodeKind.RETURN, line, 0, -1);
+    }
+
+    /**
+     * Builds a line that starts with a name: a method call if the name is followed by a '(', or an
+     * assignment otherwise.
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the method call or the assignment is invalid.
+     */
+    private void buildCallOrAssignment(int line, TokenStream tokens) throws ParserException {
+        if (tokens.is(1, TokenType.LEFT_PAREN)) {
+            buildMethodCall(line, tokens);
+        } else {
+            buildAssignment(line, tokens);
+        }
+    }
+
+    /**
+     * Handles the end of a scope: a line with a single '}'.
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the line holds more than the '}', or if there is no block to close.
+     */
+    private void buildScopeEnd(int line, TokenStream tokens) throws ParserException {
+        // check there is only one "}":
+        if (tokens.size() != 1) {
+            throw unrecognizedLine(tokens);
+        }
+        closeBlock(line);
+    }
+
+    /**
+     * Creates the error of a line that does not start like any statement.
+     *
+     * @param tokens The tokens of the line.
+     * @return The exception to throw.
+     */
+    private static ParserException unrecognizedLine(TokenStream tokens) {
+        return new ParserException(UNRECOGNIZED_INVALIE_LINE_MESSAGE + tokens.line().trim());
+    }
+
+    /**
+     * Builds a method declaration: void name ( parameters ) {
+     * Every parameter is an optional 'final', a type and a name, separated by commas.
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the method declaration is invalid.
+     */
+    private void buildMethod(int line, TokenStream tokens) throws ParserException {
+        if (!tokens.isMethodName(1) || !isParenthesized(tokens, 2, tokens.size() - 1) ||
+                !tokens.is(tokens.size() - 1, TokenType.LEFT_BRACE)) {
+            throw new ParserException(METHOD_GENERAL_SYNTAX_ERROR);
+        }
+        int method = tree.add(NodeKind.METHOD, line, 1, -1);
+        blocks.open(line, ScopeKind.METHOD, depth);
+
+        int closeIndex = tokens.size() - 2;
+        for (int index = PARAMETERS_START; index < closeIndex; index++) {
+            boolean isFinal = tokens.is(index, TokenType.FINAL);
+            int typeIndex = isFinal ? index + 1 : index;
+            int nameIndex = typeIndex + 1;
+            if (nameIndex >= closeIndex || !tokens.isVariableName(nameIndex) ||
+                    (nameIndex + 1 < closeIndex && !tokens.is(nameIndex + 1, TokenType.COMMA)) ||
+                    nameIndex + 2 == closeIndex) {
+                throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
+            }
+            if (tokens.variableType(typeIndex) == null) {
+                throw new ParserException(INVALID_TYPE_ERROR + tokens.text(typeIndex));
+            }
+            tree.add(NodeKind.PARAMETER, line, nameIndex, typeIndex);
+            index = nameIndex + 1;
+        }
+        pushBlock(method);
+    }
+
+    /**
+     * Builds an "if" or "while" block: keyword ( condition ) {
+     * The condition is built as an OR node of AND nodes, whose children are the single operands.
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the syntax of the block or of its condition is invalid.
+     */
+    private void buildIfOrWhile(int line, TokenStream tokens) throws ParserException {
+        int lastIndex = tokens.size() - 1;
+        if (!tokens.is(1, TokenType.LEFT_PAREN) || !tokens.is(lastIndex - 1, TokenType.RIGHT_PAREN) ||
+                !tokens.is(lastIndex, TokenType.LEFT_BRACE) || lastIndex - 1 <= CONDITION_START) {
+            throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
+        }
+        NodeKind kind = tokens.is(0, TokenType.IF) ? NodeKind.IF : NodeKind.WHILE;
+        int block = tree.add(kind, line, 0, -1);
+        blocks.open(line, kind == NodeKind.IF ? ScopeKind.IF : ScopeKind.WHILE, depth);
+
+        // Single conditions are separated by "||" and "&&", and the condition may not end with one.
+        // Every operand is classified once: constants are checked here, and variables are marked by
+        // their name IDs for the semantic pass.
+        int end = lastIndex - 1;
+        int or = tree.add(NodeKind.OR, line, CONDITION_START, -1);
+        int and = tree.add(NodeKind.AND, line, CONDITION_START, -1);
+        for (int index = CONDITION_START; index < end; index += 2) {
+            if (!isOperand(tokens, index) || index + 2 == end) {
+                throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
+            }
+            tree.add(NodeKind.OPERAND, line, index, tokens.id(index));
+            if (tokens.is(index + 1, TokenType.OR)) {
+                tree.close(and);
+                and = tree.add(NodeKind.AND, line, index + 2, -1);
+            } else if (index + 1 < end && !tokens.is(index + 1, TokenType.AND)) {
+                throw new ParserException(LOOP_OR_CONDITION_PARSER_EXCEPTION_MESSAGE);
+            }
+        }
+        tree.close(and);
+        tree.close(or);
+        pushBlock(block);
+    }
+
+    /**
+     * Builds a variable declaration: an optional 'final', a type and comma separated declarations,
+     * each of them a name with an optional assigned value.
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the syntax of the declaration is invalid.
+     */
+    private void buildDeclaration(int line, TokenStream tokens) throws ParserException {
+        int typeIndex = tokens.is(0, TokenType.FINAL) ? 1 : 0;
+        if (tokens.variableType(typeIndex) == null) {
+            throw new ParserException(WRONG_DECLARATION_FORMAT);
+        }
+        int declaration = tree.add(NodeKind.DECLARATION, line, typeIndex, -1);
+
+        int index = typeIndex + 1;
+        while (true) {
+            if (!tokens.isVariableName(index)) {
+                throw new ParserException(PARSER_WRONG_LINE_FORMAT + tokens.line().trim());
+            }
+            int nameIndex = index++;
+            int valueIndex = -1;
+            if (tokens.is(index, TokenType.ASSIGN)) {
+                valueIndex = index + 1;
+                if (!isValue(tokens, valueIndex)) {
+                    throw new ParserException(PARSER_WRONG_LINE_FORMAT + tokens.line().trim());
+                }
+                index += 2;
+            }
+            tree.add(NodeKind.DECLARED_VARIABLE, line, nameIndex, valueIndex);
+
+            if (isLastSemicolon(tokens, index)) {
+                break;
+            }
+            if (!tokens.is(index, TokenType.COMMA)) {
+                throw new ParserException(PARSER_WRONG_LINE_FORMAT + tokens.line().trim());
+            }
+            index++;
+        }
+        tree.close(declaration);
+    }
+
+    /**
+     * Builds an assignment line: comma separated assignments, each of them a name, '=' and a value.
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the syntax of the assignment is invalid.
+     */
+    private void buildAssignment(int line, TokenStream tokens) throws ParserException {
+        int assignment = tree.add(NodeKind.ASSIGNMENT, line, 0, -1);
+
+        int index = 0;
+        while (true) {
+            if (!tokens.isVariableName(index) || !tokens.is(index + 1, TokenType.ASSIGN) ||
+                    !isValue(tokens, index + 2)) {
+                throw new ParserException(WRONG_ASSIGNMENT_FORMAT + tokens.line().trim());
+            }
+            tree.add(NodeKind.ASSIGNED_VARIABLE, line, index, index + 2);
+
+            index += 3;
+            if (isLastSemicolon(tokens, index)) {
+                break;
+            }
+            if (!tokens.is(index, TokenType.COMMA)) {
+                throw new ParserException(WRONG_ASSIGNMENT_FORMAT + tokens.line().trim());
+            }
+            index++;
+        }
+        tree.close(assignment);
+    }
+
+    /**
+     * Builds a method call: name ( arguments ) ;
+     * Every argument is a single variable name or constant, and arguments are separated by commas.
+     *
+     * @param line   The index of the line.
+     * @param tokens The tokens of the line.
+     * @throws ParserException If the syntax of the method call is invalid.
+     */
+    private void buildMethodCall(int line, TokenStream tokens) throws ParserException {
+        if (!tokens.isMethodName(0) || !isParenthesized(tokens, 1, tokens.size() - 1) ||
+                !tokens.is(tokens.size() - 1, TokenType.SEMICOLON)) {
+            throw new ParserException(METHOD_CALL_SYNTAX_ERROR);
+        }
+        int call = tree.add(NodeKind.METHOD_CALL, line, 0, -1);
+
+        int closeIndex = tokens.size() - 2;
+        for (int index = ARGUMENTS_START; index < closeIndex; index += 2) {
+            if (!(tokens.is(index, TokenType.IDENTIFIER) || tokens.constantType(index) != null) ||
+                    (index + 1 < closeIndex && !tokens.is(index + 1, TokenType.COMMA)) ||
+                    index + 2 == closeIndex) {
+                throw new ParserException(METHOD_INVALID_PARAMETERS_ERROR);
+            }
+            tree.add(NodeKind.ARGUMENT, line, index, -1);
+        }
+        tree.close(call);
+    }
+
+    /**
+     * Closes the innermost open block on a line that holds a single '}'.
+     *
+     * @param line The index of the line.
+     * @throws ParserException If there is no open block besides the file itself.
+     */
+    private void closeBlock(int line) throws ParserException {
+        if (depth == 1) {
+            throw new ParserException(UNMATCHED_CLOSE_BRACKET_ERROR);
+        }
+        int block = openBlocks[--depth];
+        tree.close(block);
+        blocks.close(tree.line(block), line);
+    }
+
+    /**
+     * Opens a block, so the following statements are built as its children.
+     *
+     * @param block The block node.
+     */
+    private void pushBlock(int block) {
+        if (depth == openBlocks.length) {
+            openBlocks = Arrays.copyOf(openBlocks, depth * 2);
+        }
+        openBlocks[depth++] = block;
+    }
+
+    /**
+     * Checks that the tokens in the given range are a parenthesized list with no nested parentheses.
+     *
+     * @param tokens The tokens of the line.
+     * @param start  The index of the opening parenthesis.
+     * @param end    The index after the closing parenthesis.
+     * @return true if the range is parenthesized, false otherwise.
+     */
+    private static boolean isParenthesized(TokenStream tokens, int start, int end) {
+        if (end - start < 2 || !tokens.is(start, TokenType.LEFT_PAREN) ||
+                !tokens.is(end - 1, TokenType.RIGHT_PAREN)) {
+            return false;
+        }
+        for (int i = start + 1; i < end - 1; i++) {
+            if (tokens.is(i, TokenType.LEFT_PAREN) || tokens.is(i, TokenType.RIGHT_PAREN)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether a token can be a single condition: a variable name, true/false or a number.
+     */
+    private static boolean isOperand(TokenStream tokens, int index) {
+        if (tokens.is(index, TokenType.IDENTIFIER)) {
+            return true;
+        }
+        return Variable.isTypeCompatible(tokens.constantType(index), VariableType.BOOLEAN);
+    }
+
+    /**
+     * Checks whether a token can be an assigned value: a variable name or a constant.
+     */
+    private static boolean isValue(TokenStream tokens, int index) {
+        return tokens.isVariableName(index) || tokens.constantType(index) != null;
+    }
+
+    /**
+     * Checks whether a token is the ';' that ends the line.
+     */
+    private static boolean isLastSemicolon(TokenStream tokens, int index) {
+        return index == tokens.size() - 1 && tokens.is(index, TokenType.SEMICOLON);
+    }
+}
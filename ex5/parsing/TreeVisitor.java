@@ -0,0 +1,97 @@
+package ex5.parsing;
+
+import ex5.scope_managing.ScopeManagerException;
+import ex5.scope_managing.SymbolTableException;
+
+/**
+ * The TreeVisitor interface defines the callbacks of a walk over a {@link SyntaxTree}.
+ * Statements are visited in source order. A block (method, if or while) is entered through its
+ * visit method, which decides whether the statements of the block are visited, and is left through
+ * {@link #exitBlock(SyntaxTree, int)} after its last statement.
+ */
+public interface TreeVisitor {
+
+    /**
+     * Visits a method declaration.
+     *
+     * @param tree The syntax tree.
+     * @param node The METHOD node.
+     * @return True to visit the statements of the method, false to skip them.
+     * @throws ParserException       If the syntax or semantics of the method are invalid.
+     * @throws SymbolTableException  If there are issues related to the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    boolean visitMethod(SyntaxTree tree, int node)
+            throws ParserException, SymbolTableException, ScopeManagerException;
+
+    /**
+     * Visits an "if" or "while" block.
+     *
+     * @param tree The syntax tree.
+     * @param node The IF or WHILE node.
+     * @return True to visit the statements of the block, false to skip them.
+     * @throws ParserException       If the syntax or semantics of the condition are invalid.
+     * @throws SymbolTableException  If there are issues related to the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    boolean visitIfOrWhile(SyntaxTree tree, int node)
+            throws ParserException, SymbolTableException, ScopeManagerException;
+
+    /**
+     * Visits a variable declaration.
+     *
+     * @param tree The syntax tree.
+     * @param node The DECLARATION node.
+     * @throws ParserException       If the semantics of the declaration are invalid.
+     * @throws SymbolTableException  If there are issues related to the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    void visitDeclaration(SyntaxTree tree, int node)
+            throws ParserException, SymbolTableException, ScopeManagerException;
+
+    /**
+     * Visits an assignment.
+     *
+     * @param tree The syntax tree.
+     * @param node The ASSIGNMENT node.
+     * @throws ParserException       If the semantics of the assignment are invalid.
+     * @throws SymbolTableException  If there are issues related to the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    void visitAssignment(SyntaxTree tree, int node)
+            throws ParserException, SymbolTableException, ScopeManagerException;
+
+    /**
+     * Visits a method call.
+     *
+     * @param tree The syntax tree.
+     * @param node The METHOD_CALL node.
+     * @throws ParserException       If the semantics of the call are invalid.
+     * @throws SymbolTableException  If there are issues related to the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    void visitMethodCall(SyntaxTree tree, int node)
+            throws ParserException, SymbolTableException, ScopeManagerException;
+
+    /**
+     * Visits a return statement.
+     *
+     * @param tree The syntax tree.
+     * @param node The RETURN node.
+     * @throws ParserException       If the return statement is misplaced.
+     * @throws SymbolTableException  If there are issues related to the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    void visitReturn(SyntaxTree tree, int node)
+            throws ParserException, SymbolTableException, ScopeManagerException;
+
+    /**
+     * Leaves a block whose statements were visited.
+     *
+     * @param tree The syntax tree.
+     * @param node The METHOD, IF or WHILE node.
+     * @throws SymbolTableException  If there are issues related to the symbol table.
+     * @throws ScopeManagerException If there are issues with scope management.
+     */
+    void exitBlock(SyntaxTree tree, int node) throws SymbolTableException, ScopeManagerException;
+}
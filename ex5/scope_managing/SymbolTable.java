@@ -1,49 +1,173 @@
 package ex5.scope_managing;
 
 import ex5.Variable;
+import ex5.util.IntMap;
+import ex5.util.NamePool;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Arrays;
 
 import static ex5.util.Constants.*;
 
 /**
  * A SymbolTable manages variables and their types across multiple nested scopes.
- * Each scope is represented as a map, with variable names as keys and their types as values.
- * Scopes are managed as a stack, where new scopes can be added and removed as needed.
+ * Variables are identified by the IDs of their names in the {@link NamePool} of the file. All the
+ * scopes share a single index from a name ID to its innermost declaration, and every declaration
+ * links to the declaration it shadows in an outer scope. Looking a variable up is therefore a single
+ * primitive hash lookup, no matter how deeply the scopes are nested.
+ * Scopes are managed as a stack on an undo log: every declaration is pushed on a trail, entering a
+ * scope marks the current length of the trail, and removing a scope pops the declarations made since
+ * its mark, restoring the ones they shadowed. The scope stack is the only one of the validation: its
+ * frames are kept in primitive arrays, and every frame records the kind of the scope, its trail mark
+ * and the number of method scopes around it, which the {@link ScopeManager} reads. Entering and
+ * leaving a scope allocates nothing once the stack has grown to the deepest nesting of the file.
+ * Assignments are tracked by a flag on every declaration, so a table holds no state per name of the
+ * file, only per declaration it has seen. Checking whether a variable of the current scope is
+ * assigned is a lookup of its innermost declaration, and removing a scope drops its declarations with
+ * their flags. Assignments are not undone when a scope is removed: a variable assigned in an inner
+ * scope stays assigned in the scope that declared it.
+ * A SymbolTable may be layered over a frozen snapshot of another table's global scope: the snapshot
+ * is read as part of the bottom scope, and a snapshot variable is linked into the bottom scope
+ * before it is assigned, so the snapshot itself is never modified and can be shared between threads.
  */
 public class SymbolTable {
-    private final List<Map<String, Variable>> table;
+    private static final int BOTTOM_SCOPE = 0;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final ScopeKind[] KINDS = ScopeKind.values();
+
+    private final NamePool names;
+    private final IntMap<Declaration> index;
+    private final IntMap<Variable> globalSnapshot;
+    private Declaration[] trail;
+    private int trailSize;
+    private byte[] scopeKinds;
+    private int[] scopeMarks;
+    private int[] methodCounts;
+    private int scopeCount;
 
     /**
      * Constructs an empty SymbolTable with no scopes.
-     * Use {@link #addScope()} to add an initial scope before adding variables.
+     * Use {@link #addScope(ScopeKind)} to add an initial scope before adding variables.
+     *
+     * @param names The name pool of the file.
      */
-    public SymbolTable() {
-        table = new ArrayList<>();
+    public SymbolTable(NamePool names) {
+        this(names, new IntMap<>());
+    }
+
+    /**
+     * Constructs an empty SymbolTable layered over a frozen snapshot of a global scope.
+     * Use {@link #addScope(ScopeKind)} to add the bottom scope before adding variables.
+     *
+     * @param names          The name pool of the file.
+     * @param globalSnapshot A snapshot taken with {@link #snapshotGlobalScope()}.
+     */
+    public SymbolTable(NamePool names, IntMap<Variable> globalSnapshot) {
+        this.names = names;
+        index = new IntMap<>();
+        this.globalSnapshot = globalSnapshot;
+        trail = new Declaration[INITIAL_CAPACITY];
+        scopeKinds = new byte[INITIAL_CAPACITY];
+        scopeMarks = new int[INITIAL_CAPACITY];
+        methodCounts = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Takes a frozen snapshot of the global scope. The variables of the snapshot are copies, so
+     * later changes to this table do not affect it. The snapshot must not be modified, since it is
+     * shared by all the tables layered over it.
+     *
+     * @return A map from the name IDs of the global variables to the variables.
+     * @throws SymbolTableException if no scopes exist.
+     */
+    public IntMap<Variable> snapshotGlobalScope() throws SymbolTableException {
+        if (scopeCount == 0) {
+            throw new SymbolTableException(SYMBOL_TABLE_SCOPE_ERROR_MESSAGE);
+        }
+        IntMap<Variable> snapshot = new IntMap<>(globalSnapshot);
+        for (int id : index.keys()) {
+            Declaration declaration = index.get(id);
+            while (declaration.shadowed != null) {
+                declaration = declaration.shadowed;
+            }
+            if (declaration.scope != BOTTOM_SCOPE) {
+                continue;
+            }
+            Variable var = declaration.var;
+            AssignmentStatus status = declaration.assigned ?
+                    AssignmentStatus.ASSIGNED_THIS_SCOPE : AssignmentStatus.DECLARED;
+            snapshot.put(id, new Variable(var.getName(), var.getType(), status, var.isFinal()));
+        }
+        return snapshot;
     }
 
     /**
      * Adds a new scope to the symbol table.
+     *
+     * @param kind The kind of the scope.
      */
-    public void addScope() throws SymbolTableException {
-        table.add(new HashMap<>());
-        for (Variable var: table.getLast().values()) {
-            addVarToScope(var.getName(), var.getType(), var.getStatus(), var.isFinal());
+    public void addScope(ScopeKind kind) {
+        if (scopeCount == scopeMarks.length) {
+            scopeKinds = Arrays.copyOf(scopeKinds, scopeCount * 2);
+            scopeMarks = Arrays.copyOf(scopeMarks, scopeCount * 2);
+            methodCounts = Arrays.copyOf(methodCounts, scopeCount * 2);
         }
+        int enclosingMethods = scopeCount == 0 ? 0 : methodCounts[scopeCount - 1];
+        scopeKinds[scopeCount] = (byte) kind.ordinal();
+        scopeMarks[scopeCount] = trailSize;
+        methodCounts[scopeCount] = kind == ScopeKind.METHOD ? enclosingMethods + 1 : enclosingMethods;
+        scopeCount++;
     }
 
     /**
-     * Removes the most recent scope from the symbol table.
+     * Gets the number of scopes in the stack.
+     *
+     * @return The nesting depth, 1 in the global scope.
+     */
+    public int depth() {
+        return scopeCount;
+    }
+
+    /**
+     * Gets the kind of the current scope.
+     *
+     * @return The scope kind, or null if no scopes exist.
+     */
+    public ScopeKind currentKind() {
+        return scopeCount == 0 ? null : KINDS[scopeKinds[scopeCount - 1]];
+    }
+
+    /**
+     * Gets the number of method scopes that enclose the current scope, including itself.
+     *
+     * @return The number of active method scopes.
+     */
+    public int methodsCount() {
+        return scopeCount == 0 ? 0 : methodCounts[scopeCount - 1];
+    }
+
+    /**
+     * Removes the most recent scope from the symbol table, restoring the declarations that its
+     * variables shadowed.
      *
      * @throws SymbolTableException if no scopes exist.
      */
     public void removeScope() throws SymbolTableException {
-        if (!table.isEmpty()) {
-            updateVarsStatus();
-            table.removeLast();
+        if (scopeCount > 0) {
+            int mark = scopeMarks[--scopeCount];
+            while (trailSize > mark) {
+                Declaration declaration = trail[--trailSize];
+                trail[trailSize] = null;
+                if (declaration.shadowed == null) {
+                    index.remove(declaration.id);
+                } else {
+                    index.put(declaration.id, declaration.shadowed);
+                }
+            }
+
+            // Snapshot variables linked into the bottom scope are not on the trail
+            if (scopeCount == 0) {
+                index.clear();
+            }
         } else {
             throw new SymbolTableException(SYMBOL_TABLE_SCOPE_ERROR_MESSAGE);
         }
@@ -52,201 +176,159 @@ public class SymbolTable {
     /**
      * Adds a variable to the current scope.
      *
-     * @param varName The name of the variable.
-     * @param var     The Variable object to add.
+     * @param varId The name ID of the variable.
+     * @param var   The Variable object to add.
      * @throws SymbolTableException If no scopes exist or if the variable already exists in the current scope.
      */
-    public void addVarToScope(String varName, Variable var) throws SymbolTableException {
-        if (table.isEmpty()) {
+    public void addVarToScope(int varId, Variable var) throws SymbolTableException {
+        if (scopeCount == 0) {
             throw new SymbolTableException(SYMBOL_TABLE_SCOPE_ERROR_MESSAGE);
         }
 
-        Map<String, Variable> currentScope = table.getLast();
-        if (currentScope.containsKey(varName)) {
-            throw new SymbolTableException(String.format(ASSIGN_TO_EXIST_VARNAME_ERROR, varName));
+        int currentScope = scopeCount - 1;
+        Declaration innermost = index.get(varId);
+        if (innermost != null && innermost.scope == currentScope) {
+            throw new SymbolTableException(
+                    String.format(ASSIGN_TO_EXIST_VARNAME_ERROR, names.name(varId)));
         }
-        currentScope.put(varName, var);
+        Declaration declaration = new Declaration(varId, var, currentScope, innermost);
+        declaration.assigned = var.getStatus() == AssignmentStatus.ASSIGNED_THIS_SCOPE;
+        index.put(varId, declaration);
+        if (trailSize == trail.length) {
+            trail = Arrays.copyOf(trail, trailSize * 2);
+        }
+        trail[trailSize++] = declaration;
     }
 
     /**
      * Adds a variable to the current scope with specific attributes.
-     * <p>
-     * For variables in non-global scopes:
-     * - Ensures the variable is not already declared in the current scope.
-     * <p>
-     * For variables in the global scope:
-     * - If the variable has already been declared as `GLOBAL_DECLARED` or `GLOBAL_ASSIGNED`,
-     * it updates the status based on the provided `status`.
-     * - If the variable has not been declared, it adds the variable with the provided attributes.
-     * <p>
-     * Rules:
-     * - Variables cannot be redeclared in the same scope unless updating their status is explicitly
-     * allowed (e.g., global variables).
+     * Variables cannot be redeclared in the same scope, including the global scope, whose
+     * variables are declared once by the MethodReader.
      *
-     * @param varName The name of the variable to add.
+     * @param varId   The name ID of the variable to add.
      * @param type    The type of the variable (e.g., `int`, `double`, etc.).
-     * @param status  The assignment status of the variable (`DECLARED`, `ASSIGNED`, `GLOBAL_DECLARED`, etc.).
+     * @param status  The assignment status of the variable (`DECLARED` or `ASSIGNED_THIS_SCOPE`).
      * @param isFinal Whether the variable is declared as final (immutable).
      * @throws SymbolTableException If:
      *                              - No scopes exist.
-     *                              - A variable with the same name already exists in the current scope
-     *                              and cannot be redeclared or updated.
+     *                              - A variable with the same name already exists in the current scope.
      */
-    public void addVarToScope(String varName,
+    public void addVarToScope(int varId,
                               VariableType type,
                               AssignmentStatus status,
                               Boolean isFinal)
             throws SymbolTableException {
-        if (table.isEmpty()) {
-            throw new SymbolTableException(SYMBOL_TABLE_SCOPE_ERROR_MESSAGE);
-        }
-
-        Map<String, Variable> currentScope = table.get(table.size() - 1);
-        // if not in global scope:
-        if (table.size() > 1) {
-            // if already exits:
-            if (currentScope.containsKey(varName)) {
-                throw new SymbolTableException(String.format(ASSIGN_TO_EXIST_VARNAME_ERROR, varName));
-            }
-
-            Variable var = new Variable(varName, type, status, isFinal);
-            currentScope.put(varName, var);
-        }
-
-        // if in global scope:
-        else {
-            // if already been declared
-            if (currentScope.containsKey(varName)) {
-                // if only in MethodReader, change to Declared but don't add again:
-                if (currentScope.get(varName).getStatus() == AssignmentStatus.GLOBAL_DECLARED &&
-                        status == AssignmentStatus.ASSIGNED_THIS_SCOPE) {
-                    currentScope.get(varName).setStatus(AssignmentStatus.GLOBAL_ASSIGNED);
-                } else if (currentScope.get(varName).getStatus() == AssignmentStatus.GLOBAL_DECLARED ||
-                        currentScope.get(varName).getStatus() == AssignmentStatus.GLOBAL_ASSIGNED) {
-                    currentScope.get(varName).setStatus(status);
-                }
-
-                // if already been declared/assigned more than in MethodReader,
-                else {
-                    throw new SymbolTableException(String.format(ASSIGN_TO_EXIST_VARNAME_ERROR, varName));
-                }
-            }
-            // If hasn't been declared
-            else {
-                Variable var = new Variable(varName, type, AssignmentStatus.GLOBAL_DECLARED, isFinal);
-                if (status == AssignmentStatus.ASSIGNED_THIS_SCOPE) {
-                    var.setStatus(AssignmentStatus.GLOBAL_ASSIGNED);
-                }
-                currentScope.put(varName, var);
-            }
-        }
+        addVarToScope(varId, new Variable(names.name(varId), type, status, isFinal));
     }
 
     /**
      * Assigns a value to a variable in the nearest scope where it is declared.
      * Ensures:
      * - Final variables cannot be reassigned.
-     * - Variables with the status `CANT_BE_ASSIGNED` cannot be assigned.
      * - The type of the value being assigned matches the variable's type.
      *
-     * @param varName      The name of the variable.
+     * @param varId        The name ID of the variable.
      * @param variableType The type of the value being assigned.
-     * @throws SymbolTableException If the variable is not declared, is final, has an invalid status,
-     * or the type does not match.
+     * @throws SymbolTableException If the variable is not declared, is final, or the type does not match.
      */
-    public void assignVar(String varName, VariableType variableType) throws SymbolTableException {
+    public void assignVar(int varId, VariableType variableType) throws SymbolTableException {
+        Declaration declaration = index.get(varId);
 
-        for (int i = table.size() - 1; i >= 0; i--) {
-            if (table.get(i).containsKey(varName)) {
-                Variable curVar = table.get(i).get(varName);
-
-                // Check if the variable is final
-                if (curVar.isFinal()) {
-                    throw new SymbolTableException(
-                            String.format(FINAL_VARIABLE_ASSIGN_ERROR, varName)
-                    );
-                }
+        // Link a snapshot variable into the bottom scope before assigning it. It is the outermost
+        // declaration of its name, so it is only unlinked when the bottom scope is removed.
+        if (declaration == null && scopeCount > 0 && globalSnapshot.containsKey(varId)) {
+            declaration = new Declaration(varId, globalSnapshot.get(varId), BOTTOM_SCOPE, null);
+            index.put(varId, declaration);
+        }
 
-                // Check if the type matches
-                if (curVar.getType() != variableType) {
-                    throw new SymbolTableException(
-                            String.format(TYPE_MISMATCH_ASSIGN_ERROR, varName, curVar.getType(), variableType)
-                    );
-                }
-                if (curVar.getStatus() == AssignmentStatus.GLOBAL_DECLARED) {
-                    curVar.setStatus(AssignmentStatus.GLOBAL_ASSIGNED);
-                } else {
-                    curVar.setStatus(AssignmentStatus.ASSIGNED_THIS_SCOPE);
-                }
-                table.get(i).put(varName, curVar);
+        // If not found, throw error
+        if (declaration == null) {
+            throw new SymbolTableException(String.format(VARIABLE_NOT_DECLARED_ERROR, names.name(varId)));
+        }
+        Variable curVar = declaration.var;
 
-                return;
-            }
+        // Check if the variable is final
+        if (curVar.isFinal()) {
+            throw new SymbolTableException(
+                    String.format(FINAL_VARIABLE_ASSIGN_ERROR, names.name(varId))
+            );
         }
 
-        // If not found, throw error
-        throw new SymbolTableException(String.format(VARIABLE_NOT_DECLARED_ERROR, varName));
+        // Check if the type matches
+        if (curVar.getType() != variableType) {
+            throw new SymbolTableException(
+                    String.format(TYPE_MISMATCH_ASSIGN_ERROR, names.name(varId),
+                            curVar.getType(), variableType)
+            );
+        }
+        declaration.assigned = true;
     }
 
     /**
      * Checks if a variable is declared in any scope.
      *
-     * @param varName The variable name.
+     * @param varId The name ID of the variable.
      * @return true if the variable exists in any scope, false otherwise.
      */
-    public boolean isVariableDeclared(String varName) {
-        for (int i = table.size() - 1; i >= 0; i--) {
-            if (table.get(i).containsKey(varName)) {
-                return true;
-            }
-        }
-        return false;
+    public boolean isVariableDeclared(int varId) {
+        return index.containsKey(varId) || globalSnapshot.containsKey(varId);
     }
 
     /**
-     * Checks if a variable has been assigned a value in the nearest scope where it is declared.
+     * Checks if a variable has been assigned a value in the current scope.
+     * Only variables declared in the current scope are considered.
      *
-     * @param varName The name of the variable.
+     * @param varId The name ID of the variable.
      * @return true if the variable is assigned, false otherwise.
      */
-    public boolean isVariableAssigned(String varName) {
-//        for (int i = table.size() - 1; i >= 0; i--) {
-            if (table.getLast().containsKey(varName)) {
-                return (table.getLast().get(varName).getStatus() == AssignmentStatus.ASSIGNED_THIS_SCOPE ||
-                        table.getLast().get(varName).getStatus() == AssignmentStatus.GLOBAL_ASSIGNED);
-            }
-//        }
-        return false;
+    public boolean isVariableAssigned(int varId) {
+        // The innermost declaration is the only one that can be in the current scope
+        Declaration declaration = index.get(varId);
+        return declaration != null && declaration.scope == scopeCount - 1 && declaration.assigned;
     }
 
     /**
-     * Updates the status of all variables in the current scope.
-     * - Variables with the status `DECLARED` are changed to `DECLARED_LAST_ROW`.
-     * - Variables with the status `DECLARED_LAST_ROW` are changed to `CANT_BE_ASSIGNED`.
-     * This method ensures that variables cannot be reassigned after their allowed assignment window.
+     * Retrieves the type of variable from the nearest scope.
+     *
+     * @param varId The name ID of the variable.
+     * @return The variable type if found, null otherwise.
      */
-    private void updateVarsStatus() {
-        if (!table.isEmpty()) {
-            for (Variable var : table.getLast().values()) {
-                if (var.getStatus() == AssignmentStatus.ASSIGNED_THIS_SCOPE) {
-                    var.setStatus(AssignmentStatus.DECLARED);
-                }
-            }
+    public VariableType getVarType(int varId) {
+        Declaration declaration = index.get(varId);
+        if (declaration != null) {
+            return declaration.var.getType();
+        }
+        Variable frozenVar = globalSnapshot.get(varId);
+        if (frozenVar != null) {
+            return frozenVar.getType();
         }
+        return null; // Variable not found
     }
 
     /**
-     * Retrieves the type of variable from the nearest scope.
-     *
-     * @param varName The variable name.
-     * @return The variable type if found, null otherwise.
+     * A declaration of a variable in a scope, linked to the declaration of the same name that it
+     * shadows in an outer scope, if there is one. It records whether the variable was assigned.
      */
-    public VariableType getVarType(String varName) {
-        for (int i = table.size() - 1; i >= 0; i--) {
-            if (table.get(i).containsKey(varName)) {
-                return table.get(i).get(varName).getType();
-            }
+    private static class Declaration {
+        private final int id;
+        private final Variable var;
+        private final int scope;
+        private final Declaration shadowed;
+        private boolean assigned;
+
+        /**
+         * Constructs a Declaration.
+         *
+         * @param id       The name ID of the variable.
+         * @param var      The declared variable.
+         * @param scope    The index of the scope the variable is declared in.
+         * @param shadowed The shadowed declaration, or null if there is none.
+         */
+        Declaration(int id, Variable var, int scope, Declaration shadowed) {
+            this.id = id;
+            this.var = var;
+            this.scope = scope;
+            this.shadowed = shadowed;
         }
-        return null; // Variable not found
     }
-}
\ No newline at end of file
+}
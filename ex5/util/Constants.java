@@ -34,7 +34,21 @@ public class Constants {
 
     public enum AssignmentStatus {
         ASSIGNED_THIS_SCOPE, DECLARED,
-        GLOBAL_ASSIGNED, GLOBAL_DECLARED,
+    }
+
+    public enum TokenType {
+        // Saved words:
+        INT, DOUBLE, STRING, BOOLEAN, CHAR, FINAL, VOID, IF, WHILE, RETURN, TRUE, FALSE,
+        // Names and literals:
+        IDENTIFIER, INT_LITERAL, DOUBLE_LITERAL, STRING_LITERAL, CHAR_LITERAL,
+        // Punctuation:
+        LEFT_PAREN, RIGHT_PAREN, LEFT_BRACE, RIGHT_BRACE, SEMICOLON, COMMA, ASSIGN, OR, AND,
+        INVALID
+    }
+
+    public enum NodeKind {
+        FILE, METHOD, PARAMETER, IF, WHILE, OR, AND, OPERAND,
+        DECLARATION, DECLARED_VARIABLE, ASSIGNMENT, ASSIGNED_VARIABLE, METHOD_CALL, ARGUMENT, RETURN
     }
 
 
@@ -58,6 +72,8 @@ public class Constants {
     PARSER_EXCEPTION_GENERAL_ERROR_MESSAGE = "Parser Error: ",
             INVALID_ENDLINE_ERROR_MESSAGE = "Line must end with '{', '}', or ';'. The line: ",
             UNRECOGNIZED_INVALIE_LINE_MESSAGE = "Unrecognized or invalid line: ",
+            UNMATCHED_CLOSE_BRACKET_ERROR = "'}' without a matching '{'.",
+            UNCLOSED_SCOPE_ERROR = "Scope is not closed at the end of the file.",
 
     // If and while parser error messages:
     OUT_OF_METHOD_SCOPE_ERROR_MESSAGE = "loop or condition out of method scope.",
@@ -98,37 +114,6 @@ public class Constants {
             RETURN_OUT_OF_METHOD_SCOPE_ERROR = "return out of method scope.";
 
 
-    /**
-     * <h2> REGEX patterns </h2>
-     */
-    public static final String LINE_END_REGEX = ".*[{};]$";
-    public static final String VARIABLE_NAME_REGEX =
-            "(?!true$)(?!false$)([a-zA-Z]|_[a-zA-Z0-9])[a-zA-Z0-9_]*";
-    public static final String KEYWORDS_REGEX =
-            "^(int|double|String|boolean|char|final|void|if|while|return|" + VARIABLE_NAME_REGEX + "|})";
-    public static final String DECLARATION_REGEX = "int|double|String|boolean|char|final";
-    public static final String TYPE_REGEX = "^(final\\s+)?(int|double|String|char|boolean)\\b";
-    public static final String INT_VALUE_REGEX = "[-+]?\\d+";
-    public static final String DOUBLE_VALUE_REGEX = "[-+]?(\\d*\\.\\d+|\\d+\\.\\d*|\\d+)";
-    public static final String STRING_VALUE_REGEX = "\"[^\\" + "\\'\",]*\"";
-    public static final String BOOLEAN_VALUE_REGEX = "(true|false|[-+]?\\d+(\\.\\d+)?)";
-    public static final String BOOLEAN_CONSTANT_REGEX = "(true|false)";
-    public static final String CHAR_VALUE_REGEX = "'[^\\\"\\\\',]'";
-    public static final String IF_CONDITION_REGEX = "if\\s*\\((.+)\\)\\s*\\{";
-    public static final String WHILE_CONDITION_REGEX = "while\\s*\\((.+)\\)\\s*\\{";
-    public static final String OR_CONDITION_REGEX = "(.+?)\\|\\|(.+)";
-    public static final String SPLIT_BY_SPACE_REGEX = "\\s+";
-    public static final String AND_CONDITION_REGEX = "(.+?)&&(.+)";
-    public static final String COMMA_SEPARATION_REGEX = ",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)";
-    public static final String FINAL_START_REGEX = "^(final\\s+)?";
-    public static final String CLOSE_BRACKET_REGEX = "\\}";
-    public static final String OPEN_BRACKET_REGEX = "\\{";
-    public static final String RETURN_LINE = "return\\s*;";
-    public static final String METHOD_NAME_REGEX = "[a-zA-Z][a-zA-Z0-9_]*";
-    public static final String METHOD_DECLARE_REGEX =
-            "void\\s+(" + METHOD_NAME_REGEX + ")\\s*\\(([^)]*)\\)\\s*\\{";
-    public static final String METHOD_CALL_REGEX = "(" + METHOD_NAME_REGEX + ")\\s*\\(([^)]*)\\)\\s*;";
-
     /**
      * <h2> saved words </h2>
      */
@@ -143,6 +128,23 @@ public class Constants {
             CHAR = "char",
             RETURN = "return",
             FINAL = "final",
+            TRUE = "true",
+            FALSE = "false",
             END_OF_SCOPE = "}";
 
+    /**
+     * <h2> Exit codes and batch mode </h2>
+     */
+    public static final int
+            VALID_FILE_CODE = 0,
+            INVALID_FILE_CODE = 1,
+            IO_ERROR_CODE = 2;
+    public static final String
+            LIST_FILE_PREFIX = "@",
+            SJAVA_FILE_SUFFIX = ".sjava",
+            RESULT_SEPARATOR = "\t",
+            PARALLELISM_OPTION = "--parallelism=",
+            UNORDERED_OPTION = "--unordered",
+            OPTION_PREFIX = "--";
+
 }
@@ -0,0 +1,207 @@
+package ex5.util;
+
+import java.util.Arrays;
+
+/**
+ * The IntMap class is a map from non-negative int keys, such as the IDs of a {@link NamePool}, to
+ * objects. Keys are stored in a primitive array and open-addressed with linear probing, so a lookup
+ * neither boxes the key nor calls hashCode or equals.
+ * Removal shifts the following entries of the probe sequence back, so no tombstones are left.
+ *
+ * @param <V> The type of the values.
+ */
+public class IntMap<V> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int EMPTY = -1;
+
+    private int[] keys;
+    private V[] values;
+    private int size;
+
+    /**
+     * Constructs an empty IntMap.
+     */
+    public IntMap() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty IntMap that holds the given number of entries without growing.
+     *
+     * @param expectedSize The expected number of entries.
+     */
+    @SuppressWarnings("unchecked")
+    public IntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, INITIAL_CAPACITY / 2) * 2 - 1) * 2;
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = (V[]) new Object[capacity];
+    }
+
+    /**
+     * Constructs an IntMap with the same entries as another one.
+     *
+     * @param other The map to copy.
+     */
+    public IntMap(IntMap<V> other) {
+        keys = other.keys.clone();
+        values = other.values.clone();
+        size = other.size;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key The key.
+     * @return The value, or null if the key is not in the map.
+     */
+    public V get(int key) {
+        int slot = find(key);
+        return slot == EMPTY ? null : values[slot];
+    }
+
+    /**
+     * Checks whether a key is in the map.
+     *
+     * @param key The key.
+     * @return True if the key is in the map, false otherwise.
+     */
+    public boolean containsKey(int key) {
+        return find(key) != EMPTY;
+    }
+
+    /**
+     * Maps a key to a value, replacing its previous value if there is one.
+     *
+     * @param key   The key, which must not be negative.
+     * @param value The value.
+     */
+    public void put(int key, V value) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+
+        // Keep the load factor under one half:
+        if (size * 2 > keys.length) {
+            resize();
+        }
+    }
+
+    /**
+     * Removes a key from the map.
+     *
+     * @param key The key.
+     */
+    public void remove(int key) {
+        int slot = find(key);
+        if (slot == EMPTY) {
+            return;
+        }
+        int mask = keys.length - 1;
+        size--;
+
+        // Shift back the entries whose probe sequence passes through the freed slot:
+        int next = (slot + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = mix(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - slot) & mask)) {
+                keys[slot] = keys[next];
+                values[slot] = values[next];
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[slot] = EMPTY;
+        values[slot] = null;
+    }
+
+    /**
+     * Removes all the entries of the map, keeping its capacity.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Gets the number of entries in the map.
+     *
+     * @return The number of entries.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets all the keys of the map, in no particular order.
+     *
+     * @return A new array of the keys.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int count = 0;
+        for (int key : keys) {
+            if (key != EMPTY) {
+                result[count++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the slot of a key.
+     *
+     * @return The slot, or EMPTY if the key is not in the map.
+     */
+    private int find(int key) {
+        if (key < 0) {
+            return EMPTY;
+        }
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Doubles the number of slots and places every entry again.
+     */
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        int[] oldKeys = keys;
+        V[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        values = (V[]) new Object[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Scrambles a key, so dense keys do not fill consecutive slots.
+     */
+    private static int mix(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
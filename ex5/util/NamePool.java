@@ -0,0 +1,169 @@
+package ex5.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * The NamePool class interns the identifiers of a single file to dense int IDs, starting from 0.
+ * Identifiers are interned straight from the bytes of a line, so an identifier that was already
+ * seen costs a hash over its bytes and a comparison, and its text is materialized only once per
+ * file. The pool is open-addressed with linear probing.
+ * A NamePool is filled while the file is lexed, on a single thread. Once lexing is done it is only
+ * read, and may then be shared between the threads that validate the file.
+ * When parts of a file are lexed in parallel, each thread interns through a local pool over the
+ * shared pool of the file: a local pool hands out the IDs of its parent, and locks the parent only
+ * the first time it sees a name, so the threads rarely contend.
+ */
+public class NamePool {
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int EMPTY = -1;
+
+    private final NamePool parent;
+    private int[] parentIds;
+    private int[] slots;
+    private int[] hashes;
+    private byte[] bytes;
+    private int[] offsets;
+    private String[] names;
+    private int size;
+    private int bytesSize;
+
+    /**
+     * Constructs an empty NamePool.
+     */
+    public NamePool() {
+        this(null);
+    }
+
+    /**
+     * Constructs an empty local pool over a shared pool. The local pool interns every name into
+     * its parent, and hands out the IDs of the parent.
+     *
+     * @param parent The shared pool, or null for a pool of its own.
+     */
+    public NamePool(NamePool parent) {
+        this.parent = parent;
+        parentIds = parent == null ? null : new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY];
+        Arrays.fill(slots, EMPTY);
+        hashes = new int[INITIAL_CAPACITY];
+        bytes = new byte[INITIAL_CAPACITY * 4];
+        offsets = new int[INITIAL_CAPACITY + 1];
+        names = new String[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Interns an identifier given as a range of bytes.
+     *
+     * @param source The bytes holding the identifier.
+     * @param start  The start offset (inclusive) of the identifier.
+     * @param end    The end offset (exclusive) of the identifier.
+     * @return The ID of the identifier.
+     */
+    public int intern(byte[] source, int start, int end) {
+        int hash = hash(source, start, end);
+        int mask = slots.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int id = slots[slot];
+            if (id == EMPTY) {
+                id = add(source, start, end, hash, slot);
+                return parent == null ? id : parentIds[id];
+            }
+            if (hashes[id] == hash &&
+                    Arrays.equals(bytes, offsets[id], offsets[id + 1], source, start, end)) {
+                return parent == null ? id : parentIds[id];
+            }
+        }
+    }
+
+    /**
+     * Gets the text of an interned identifier.
+     *
+     * @param id The ID of the identifier.
+     * @return The identifier.
+     */
+    public String name(int id) {
+        return parent == null ? names[id] : parent.name(id);
+    }
+
+    /**
+     * Gets the number of interned identifiers. The IDs of the pool are 0 to size() - 1. The IDs of a
+     * local pool are those of its parent, so its size is the size of its parent.
+     *
+     * @return The number of identifiers.
+     */
+    public int size() {
+        return parent == null ? size : parent.size();
+    }
+
+    /**
+     * Adds a new identifier to the pool, at a free slot of its hash. A local pool also interns it
+     * into its parent.
+     *
+     * @return The local ID of the new identifier.
+     */
+    private int add(byte[] source, int start, int end, int hash, int slot) {
+        int length = end - start;
+        if (size + 1 == offsets.length) {
+            hashes = Arrays.copyOf(hashes, size * 2);
+            offsets = Arrays.copyOf(offsets, size * 2 + 1);
+            names = Arrays.copyOf(names, size * 2);
+            if (parent != null) {
+                parentIds = Arrays.copyOf(parentIds, size * 2);
+            }
+        }
+        if (bytesSize + length > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, bytesSize + length));
+        }
+        System.arraycopy(source, start, bytes, bytesSize, length);
+        bytesSize += length;
+
+        int id = size++;
+        hashes[id] = hash;
+        offsets[id + 1] = bytesSize;
+        if (parent == null) {
+            names[id] = new String(source, start, length, StandardCharsets.UTF_8);
+        } else {
+            synchronized (parent) {
+                parentIds[id] = parent.intern(source, start, end);
+            }
+        }
+        slots[slot] = id;
+
+        // Keep the load factor under one half:
+        if (size * 2 > slots.length) {
+            rehash();
+        }
+        return id;
+    }
+
+    /**
+     * Doubles the number of slots and places every identifier again.
+     */
+    private void rehash() {
+        slots = new int[slots.length * 2];
+        Arrays.fill(slots, EMPTY);
+        int mask = slots.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (slots[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            slots[slot] = id;
+        }
+    }
+
+    /**
+     * Hashes a range of bytes. The polynomial hash of similar names, such as the generated a0, a1,
+     * a2..., falls in runs of consecutive values that linear probing turns into long clusters, so it
+     * is scrambled by a multiplicative mix before the slot is taken from its low bits.
+     */
+    private static int hash(byte[] source, int start, int end) {
+        int hash = 1;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + source[i];
+        }
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -0,0 +1,181 @@
+package ex5;
+
+import ex5.main.Sjavac;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The BenchmarkDriver class holds the parts that the main-based benchmarks share: timing runs after
+ * a warmup, summarizing the timed runs, and validating a file on a thread with a chosen stack size.
+ * A benchmark only generates its inputs and describes a single run.
+ */
+public final class BenchmarkDriver {
+    private static final int VALID = 0;
+    private static final long DEFAULT_STACK = 0;
+
+    private BenchmarkDriver() {
+    }
+
+    /**
+     * The Run interface is a single timed run of a benchmark.
+     */
+    public interface Run {
+        /**
+         * Runs the benchmark once.
+         *
+         * @return null if the run succeeded, or a description of its failure.
+         * @throws Exception If the run can not be performed.
+         */
+        String run() throws Exception;
+    }
+
+    /**
+     * The Timing class holds the times of the measured runs of a benchmark, or the failure that
+     * stopped it.
+     */
+    public static final class Timing {
+        private final long[] times;
+        private final String failure;
+
+        private Timing(long[] times, String failure) {
+            this.times = times;
+            this.failure = failure;
+        }
+
+        /**
+         * Gets the failure that stopped the benchmark.
+         *
+         * @return The description of the failure, or null if every run succeeded.
+         */
+        public String failure() {
+            return failure;
+        }
+
+        /**
+         * Gets the median time of the measured runs.
+         *
+         * @return The median time in nanoseconds.
+         */
+        public long median() {
+            long[] sorted = times.clone();
+            Arrays.sort(sorted);
+            return sorted[sorted.length / 2];
+        }
+
+        /**
+         * Gets the mean time of the measured runs.
+         *
+         * @return The mean time in nanoseconds.
+         */
+        public double mean() {
+            double sum = 0;
+            for (long time : times) {
+                sum += time;
+            }
+            return sum / times.length;
+        }
+
+        /**
+         * Gets the standard deviation of the times of the measured runs.
+         *
+         * @return The standard deviation in nanoseconds.
+         */
+        public double deviation() {
+            double mean = mean();
+            double squares = 0;
+            for (long time : times) {
+                squares += (time - mean) * (time - mean);
+            }
+            return Math.sqrt(squares / times.length);
+        }
+    }
+
+    /**
+     * Times a single run: it is repeated for a number of warmup rounds, which are not timed, and
+     * then for a number of measured rounds.
+     *
+     * @param warmupRounds   The number of rounds before the measured ones.
+     * @param measuredRounds The number of timed rounds.
+     * @param run            The run to time.
+     * @return The timing of the run.
+     * @throws Exception If the run can not be performed.
+     */
+    public static Timing measure(int warmupRounds, int measuredRounds, Run run) throws Exception {
+        return measure(warmupRounds, measuredRounds, new Run[]{run})[0];
+    }
+
+    /**
+     * Times several runs that are compared with each other. Every round performs all the runs one
+     * after the other, so they share the state of the JIT and the machine. Measuring stops at the
+     * first failure.
+     *
+     * @param warmupRounds   The number of rounds before the measured ones.
+     * @param measuredRounds The number of timed rounds.
+     * @param runs           The runs to time.
+     * @return The timing of every run, in the order of the runs.
+     * @throws Exception If a run can not be performed.
+     */
+    public static Timing[] measure(int warmupRounds, int measuredRounds, Run... runs) throws Exception {
+        long[][] times = new long[runs.length][measuredRounds];
+        String failure = null;
+        for (int round = 0; round < warmupRounds + measuredRounds && failure == null; round++) {
+            for (int i = 0; i < runs.length && failure == null; i++) {
+                long start = System.nanoTime();
+                failure = runs[i].run();
+                long time = System.nanoTime() - start;
+                if (round >= warmupRounds) {
+                    times[i][round - warmupRounds] = time;
+                }
+            }
+        }
+        Timing[] timings = new Timing[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            timings[i] = new Timing(times[i], failure);
+        }
+        return timings;
+    }
+
+    /**
+     * Validates a file with {@link Sjavac#validate(String)} on a new thread.
+     *
+     * @param path      The path of the file.
+     * @param stackSize The stack size of the thread in bytes, or 0 for the default size.
+     * @return null if the file is valid, or a description of the failure.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public static String validate(Path path, long stackSize) throws InterruptedException {
+        String[] result = new String[1];
+        Thread thread = new Thread(null, () -> {
+            PrintStream err = System.err;
+            try {
+                // Sjavac prints the error of an invalid file, which the result already reports:
+                System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+                int code = Sjavac.validate(path.toString());
+                if (code != VALID) {
+                    result[0] = "exit code " + code;
+                }
+            } catch (StackOverflowError e) {
+                result[0] = "stack overflow";
+            } finally {
+                System.setErr(err);
+            }
+        }, "benchmark", stackSize);
+        thread.start();
+        thread.join();
+        return result[0];
+    }
+
+    /**
+     * Validates a file with {@link Sjavac#validate(String)} on a new thread with the default stack.
+     *
+     * @param path The path of the file.
+     * @return null if the file is valid, or a description of the failure.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    public static String validate(Path path) throws InterruptedException {
+        return validate(path, DEFAULT_STACK);
+    }
+}
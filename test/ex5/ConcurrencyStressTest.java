@@ -0,0 +1,281 @@
+package ex5;
+
+import ex5.main.Sjavac;
+import ex5.parsing.Lexer;
+import ex5.parsing.ParserException;
+import ex5.parsing.SyntaxTree;
+import ex5.parsing.TokenStream;
+import ex5.parsing.TreeBuilder;
+import ex5.scope_managing.ScopeManagerException;
+import ex5.scope_managing.SymbolTableException;
+import ex5.util.NamePool;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The ConcurrencyStressTest class checks that validating files concurrently gives exactly the
+ * results of validating them one by one.
+ * It generates s-Java files with many methods (valid ones and ones with a single injected error),
+ * validates each of them sequentially to get the expected result (exit code and error message),
+ * and then validates all of them again, repeatedly, on many threads at once. In the concurrent phase
+ * every file is validated three ways: through {@link ex5.main.Sjavac#validate(String)}, from its
+ * path with a fresh tree, and from a single {@link SyntaxTree} built beforehand and shared by all
+ * the threads, which checks that the shared state (the tree, its name pool and block index) is never
+ * written during validation. Method bodies are validated in parallel inside each file as well.
+ * <p>
+ * Usage: java ex5.ConcurrencyStressTest [files] [methods per file] [threads] [rounds]
+ * The defaults are 2000 files of up to 60 methods, 4 threads per processor and 3 rounds.
+ * The exit status is 0 if every result matched, and 1 otherwise.
+ */
+public class ConcurrencyStressTest {
+    private static final int DEFAULT_FILES = 2000;
+    private static final int DEFAULT_METHODS = 60;
+    private static final int THREADS_PER_PROCESSOR = 4;
+    private static final int DEFAULT_ROUNDS = 3;
+    private static final long SEED = 20260118L;
+    private static final String[] ERRORS = {
+            "    undeclared = 1;", "    int a0 = \"text\";", "    final int f; ", "    m0(1, 2, 3, 4);",
+            "    if (s) {\n    }", "    return", "    boolean b = 5.;", "    char c = 'ab';"
+    };
+
+    /**
+     * Runs the stress test.
+     *
+     * @param args Optional: the number of files, the number of methods per file, the number of
+     *             threads and the number of rounds.
+     * @throws Exception If the files can not be written or a thread is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        int fileCount = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FILES;
+        int methodCount = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_METHODS;
+        int threadCount = args.length > 2 ? Integer.parseInt(args[2]) :
+                Runtime.getRuntime().availableProcessors() * THREADS_PER_PROCESSOR;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : DEFAULT_ROUNDS;
+
+        Path directory = Files.createTempDirectory("sjavac-stress");
+        List<String> paths = generate(directory, fileCount, methodCount);
+
+        // The expected results, one file at a time:
+        String[] expected = new String[paths.size()];
+        SyntaxTree[] trees = new SyntaxTree[paths.size()];
+        int validFiles = 0;
+        for (int i = 0; i < paths.size(); i++) {
+            expected[i] = validate(paths.get(i));
+            trees[i] = build(paths.get(i));
+            if (expected[i].equals("0")) {
+                validFiles++;
+            }
+        }
+
+        // Sjavac reports the errors of invalid files on the standard error, discard them:
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        AtomicInteger mismatches = new AtomicInteger();
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < paths.size(); i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, new Random(SEED + round));
+            runConcurrently(threadCount, order.size(), task -> {
+                int file = order.get(task);
+                check(file, paths.get(file), expected[file].substring(0, 1),
+                        Integer.toString(Sjavac.validate(paths.get(file))), mismatches);
+                check(file, paths.get(file), expected[file], validate(paths.get(file)), mismatches);
+                if (trees[file] != null) {
+                    check(file, paths.get(file), expected[file], validate(trees[file]), mismatches);
+                }
+            });
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        for (String path : paths) {
+            Files.delete(Path.of(path));
+        }
+        Files.delete(directory);
+
+        System.out.printf("%d files (%d valid) x %d rounds on %d threads in %d ms: %d mismatches%n",
+                paths.size(), validFiles, rounds, threadCount, millis, mismatches.get());
+        System.exit(mismatches.get() == 0 ? 0 : 1);
+    }
+
+    /**
+     * The Task interface is a single unit of work of the concurrent phase.
+     */
+    private interface Task {
+        /**
+         * Runs the task.
+         *
+         * @param index The index of the task.
+         */
+        void run(int index);
+    }
+
+    /**
+     * Runs tasks on a number of threads that all start at once and take tasks from a shared counter.
+     *
+     * @param threadCount The number of threads.
+     * @param taskCount   The number of tasks.
+     * @param task        The task to run for every index.
+     * @throws InterruptedException If the thread is interrupted while waiting.
+     */
+    private static void runConcurrently(int threadCount, int taskCount, Task task)
+            throws InterruptedException {
+        CountDownLatch startSignal = new CountDownLatch(1);
+        AtomicInteger next = new AtomicInteger();
+        Thread[] threads = new Thread[threadCount];
+        for (int t = 0; t < threadCount; t++) {
+            threads[t] = new Thread(() -> {
+                try {
+                    startSignal.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int index = next.getAndIncrement(); index < taskCount; index = next.getAndIncrement()) {
+                    task.run(index);
+                }
+            });
+            threads[t].start();
+        }
+        startSignal.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Compares a result to the expected one, and reports a mismatch.
+     */
+    private static void check(int file, String path, String expected, String actual, AtomicInteger mismatches) {
+        if (!expected.equals(actual)) {
+            mismatches.incrementAndGet();
+            System.out.printf("MISMATCH %s (file %d): expected [%s], got [%s]%n", path, file, expected, actual);
+        }
+    }
+
+    /**
+     * Validates a file from its path, as a single run does.
+     *
+     * @param path The path of the file.
+     * @return The exit code of the file, followed by its error message if it is invalid.
+     */
+    private static String validate(String path) {
+        SyntaxTree tree;
+        try {
+            tree = buildOrThrow(path);
+        } catch (IOException e) {
+            return "2";
+        } catch (ParserException e) {
+            return "1 " + e.getMessage();
+        }
+        return validate(tree);
+    }
+
+    /**
+     * Validates a syntax tree with a fresh validation context.
+     *
+     * @param tree The syntax tree of a file.
+     * @return The exit code of the file, followed by its error message if it is invalid.
+     */
+    private static String validate(SyntaxTree tree) {
+        try {
+            new ValidationContext().validate(tree);
+            return "0";
+        } catch (ParserException | SymbolTableException | ScopeManagerException e) {
+            return "1 " + e.getMessage();
+        }
+    }
+
+    /**
+     * Builds the syntax tree of a file.
+     *
+     * @param path The path of the file.
+     * @return The syntax tree, or null if the file can not be read or has invalid syntax.
+     */
+    private static SyntaxTree build(String path) {
+        try {
+            return buildOrThrow(path);
+        } catch (IOException | ParserException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads, tokenizes and builds the syntax tree of a file.
+     */
+    private static SyntaxTree buildOrThrow(String path) throws IOException, ParserException {
+        NamePool names = new NamePool();
+        Lexer lexer = new Lexer(names);
+        LineSource source = LineSource.open(path);
+        List<TokenStream> lines = new ArrayList<>();
+        while (source.next()) {
+            lines.add(lexer.tokenize(source.source(), source.start(), source.end()));
+        }
+        return TreeBuilder.build(lines, names);
+    }
+
+    /**
+     * Generates the files of the test. A third of the files get a single error at a random line.
+     *
+     * @param directory   The directory to write the files to.
+     * @param fileCount   The number of files.
+     * @param methodCount The maximal number of methods per file.
+     * @return The paths of the files.
+     * @throws IOException If a file can not be written.
+     */
+    private static List<String> generate(Path directory, int fileCount, int methodCount) throws IOException {
+        Random random = new Random(SEED);
+        List<String> paths = new ArrayList<>();
+        for (int file = 0; file < fileCount; file++) {
+            List<String> lines = new ArrayList<>();
+            lines.add("int g0 = 1;");
+            lines.add("final double g1 = 2.5;");
+            lines.add("boolean g2;");
+            lines.add("String s = \"text\";");
+            int methods = 1 + random.nextInt(methodCount);
+            for (int method = 0; method < methods; method++) {
+                lines.add("void m" + method + "(int a0, double a1, boolean a2, final String a3) {");
+                lines.add("    int x = a0;");
+                lines.add("    double y = x;");
+                lines.add("    boolean b = a2;");
+                lines.add("    m" + random.nextInt(methods) + "(x, y, b, a3);");
+                for (int depth = 0; depth < random.nextInt(4); depth++) {
+                    lines.add("    while (true || " + depth + ".5 && " + depth + ") {");
+                    lines.add("        int z = " + depth + ";");
+                    lines.add("        x = z;");
+                    lines.add("        double inner = z, w;");
+                    lines.add("        w = inner;");
+                    lines.add("        m" + random.nextInt(methods) + "(z, w, false, \"s\");");
+                    lines.add("        if (true && 0) {");
+                    lines.add("            boolean q = false;");
+                    lines.add("        }");
+                    lines.add("    }");
+                }
+                lines.add("    if (false) {");
+                lines.add("        g2 = true;");
+                lines.add("    }");
+                lines.add("    return;");
+                lines.add("}");
+            }
+            if (file % 3 == 2) {
+                int line = 5 + random.nextInt(lines.size() - 6);
+                lines.add(line, ERRORS[random.nextInt(ERRORS.length)]);
+            }
+            Path path = directory.resolve("f" + file + ".sjava");
+            Files.write(path, lines, StandardCharsets.UTF_8);
+            paths.add(path.toString());
+        }
+        return paths;
+    }
+}
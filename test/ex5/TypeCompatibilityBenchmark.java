@@ -0,0 +1,120 @@
+package ex5;
+
+import java.util.Random;
+
+import static ex5.util.Constants.*;
+
+/**
+ * The TypeCompatibilityBenchmark class compares {@link Variable#isTypeCompatible} with the chain of
+ * comparisons it replaced, which is kept below as the baseline.
+ * It first checks that both agree on every pair of types, including a missing actual type. Then both
+ * check the same random sequence of pairs, in alternating rounds in the same JVM, so the JIT and the
+ * machine state are shared: the first rounds are a warmup, and the mean and standard deviation of the
+ * measured rounds are reported per check. The random pairs make the outcome of every comparison
+ * unpredictable, as it is for the mixed types of a real file.
+ * <p>
+ * Usage: java ex5.TypeCompatibilityBenchmark [rounds]
+ * The default is 30 rounds, 10 of them warmup, of 10 million checks each. The exit status is 1 if the
+ * two implementations disagree on a pair.
+ */
+public class TypeCompatibilityBenchmark {
+    private static final int DEFAULT_ROUNDS = 30;
+    private static final int WARMUP_ROUNDS = 10;
+    private static final int PAIRS = 1 << 16;
+    private static final int CHECKS_PER_ROUND = 10_000_000;
+    private static final long SEED = 20261018L;
+    private static final VariableType[] TYPES = VariableType.values();
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional: the number of rounds, including the warmup rounds.
+     * @throws Exception If a round can not be performed.
+     */
+    public static void main(String[] args) throws Exception {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_ROUNDS;
+
+        // Both implementations must agree on every pair:
+        for (VariableType expected : TYPES) {
+            for (int actual = -1; actual < TYPES.length; actual++) {
+                VariableType actualType = actual < 0 ? null : TYPES[actual];
+                if (Variable.isTypeCompatible(actualType, expected) != chainCompatible(actualType, expected)) {
+                    System.out.printf("MISMATCH actual %s, expected %s%n", actualType, expected);
+                    System.exit(1);
+                }
+            }
+        }
+
+        Random random = new Random(SEED);
+        VariableType[] actuals = new VariableType[PAIRS];
+        VariableType[] expecteds = new VariableType[PAIRS];
+        for (int i = 0; i < PAIRS; i++) {
+            actuals[i] = TYPES[random.nextInt(TYPES.length)];
+            expecteds[i] = TYPES[random.nextInt(TYPES.length)];
+        }
+
+        long[] compatible = new long[1];
+        BenchmarkDriver.Timing[] timings = BenchmarkDriver.measure(WARMUP_ROUNDS, rounds - WARMUP_ROUNDS,
+                () -> {
+                    compatible[0] += countChain(actuals, expecteds);
+                    return null;
+                },
+                () -> {
+                    compatible[0] += countTable(actuals, expecteds);
+                    return null;
+                });
+
+        report("comparison chain (before)", timings[0]);
+        report("bitmask table (after)", timings[1]);
+        // Printing the count keeps the checks from being optimized away:
+        System.out.printf("%d compatible pairs%n", compatible[0]);
+    }
+
+    /**
+     * Counts the compatible pairs of a round with the bitmask table.
+     */
+    private static long countTable(VariableType[] actuals, VariableType[] expecteds) {
+        long count = 0;
+        for (int check = 0; check < CHECKS_PER_ROUND; check++) {
+            int pair = check & (PAIRS - 1);
+            if (Variable.isTypeCompatible(actuals[pair], expecteds[pair])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Counts the compatible pairs of a round with the comparison chain.
+     */
+    private static long countChain(VariableType[] actuals, VariableType[] expecteds) {
+        long count = 0;
+        for (int check = 0; check < CHECKS_PER_ROUND; check++) {
+            int pair = check & (PAIRS - 1);
+            if (chainCompatible(actuals[pair], expecteds[pair])) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * The type compatibility check as it was before the bitmask table, for comparison. A missing
+     * actual type is never equal to an expected one, so it is incompatible here as well.
+     */
+    private static boolean chainCompatible(VariableType actual, VariableType expected) {
+        if (actual == expected) return true;
+        if (expected == VariableType.DOUBLE && actual == VariableType.INT) return true;
+        if (expected == VariableType.BOOLEAN && (actual == VariableType.INT || actual == VariableType.DOUBLE))
+            return true;
+        return false;
+    }
+
+    /**
+     * Prints the mean and standard deviation of the time per check of the measured rounds.
+     */
+    private static void report(String name, BenchmarkDriver.Timing timing) {
+        System.out.printf("%-28s %6.3f ns/check +- %.3f%n", name, timing.mean() / CHECKS_PER_ROUND,
+                timing.deviation() / CHECKS_PER_ROUND);
+    }
+}
@@ -0,0 +1,94 @@
+package ex5.parsing;
+
+import ex5.BenchmarkDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The ConditionBenchmark class validates if and while conditions with a huge number of operands, and
+ * checks that they neither overflow the stack nor slow down sharply as the conditions grow.
+ * Every generated file holds one method with an if and a while whose conditions have the given number
+ * of operands, joined by alternating "||" and "&&". The operands cycle through the kinds of constants
+ * a condition accepts, since variables of enclosing scopes are not considered assigned in a block.
+ * Every validation runs on a thread with a small stack, so a parser that recurses per operand fails.
+ * <p>
+ * Usage: java ex5.parsing.ConditionBenchmark [operands...]
+ * The default operand counts are 1000, 10000, 100000 and 200000. Every file must be valid; the exit
+ * status is 0 if all of them were, and 1 if one was not or the validation overflowed the stack.
+ */
+public class ConditionBenchmark {
+    private static final int[] DEFAULT_OPERANDS = {1000, 10000, 100000, 200000};
+    private static final String[] CONSTANTS = {"true", "1", "2.5", "false", "-3", "+.5"};
+    private static final long STACK_SIZE = 256 * 1024;
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 7;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional: the operand counts to measure.
+     * @throws Exception If a file can not be written or the benchmark is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] operandCounts = args.length == 0 ? DEFAULT_OPERANDS :
+                Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        // Warm up on the largest file, so the first count is not measured with interpreted code:
+        Path warmup = generate(operandCounts[operandCounts.length - 1]);
+        BenchmarkDriver.measure(WARMUP_RUNS, 0, () -> BenchmarkDriver.validate(warmup, STACK_SIZE));
+        Files.delete(warmup);
+
+        boolean passed = true;
+        System.out.printf("%10s %10s %10s %14s%n", "operands", "bytes", "median ms", "ns per operand");
+        for (int operands : operandCounts) {
+            Path path = generate(operands);
+            long bytes = Files.size(path);
+            BenchmarkDriver.Timing timing = BenchmarkDriver.measure(WARMUP_RUNS, MEASURED_RUNS,
+                    () -> BenchmarkDriver.validate(path, STACK_SIZE));
+            Files.delete(path);
+
+            if (timing.failure() != null) {
+                passed = false;
+                System.out.printf("%10d %10d %s%n", operands, bytes, timing.failure());
+                continue;
+            }
+            long median = timing.median();
+            // Each file holds two conditions:
+            System.out.printf("%10d %10d %10.2f %14d%n", operands, bytes, median / 1e6,
+                    median / (2L * operands));
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Generates a valid file with an if and a while condition of a given number of operands.
+     *
+     * @param operands The number of operands of each condition.
+     * @return The path of the file.
+     * @throws IOException If the file can not be written.
+     */
+    private static Path generate(int operands) throws IOException {
+        StringBuilder condition = new StringBuilder(CONSTANTS[0]);
+        for (int operand = 1; operand < operands; operand++) {
+            condition.append(operand % 2 == 0 ? " || " : " && ")
+                    .append(CONSTANTS[operand % CONSTANTS.length]);
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add("void conditions() {");
+        lines.add("    if (" + condition + ") {");
+        lines.add("    }");
+        lines.add("    while (" + condition + ") {");
+        lines.add("    }");
+        lines.add("    return;");
+        lines.add("}");
+        Path path = Files.createTempFile("sjavac-condition", ".sjava");
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        return path;
+    }
+}
@@ -0,0 +1,93 @@
+package ex5.scope_managing;
+
+import ex5.BenchmarkDriver;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The NestingBenchmark class validates methods with deeply nested blocks, and checks that the
+ * validation neither overflows the stack nor slows down sharply as the nesting grows.
+ * Every generated file holds one method whose blocks nest to the given depth. Every block declares a
+ * variable and assigns a variable of the method scope and a global one, so every assignment looks a
+ * name up through all the scopes around it. A symbol table that walks the scopes is therefore
+ * quadratic in the depth, while a flat one stays linear: the time per line should stay about the same
+ * at every depth.
+ * <p>
+ * Usage: java ex5.scope_managing.NestingBenchmark [depth...]
+ * The default depths are 125, 250, 500, 1000, 2000 and 4000. Every file must be valid; the exit status
+ * is 0 if all of them were, and 1 if one was not or the validation overflowed the stack.
+ */
+public class NestingBenchmark {
+    private static final int[] DEFAULT_DEPTHS = {125, 250, 500, 1000, 2000, 4000};
+    private static final int WARMUP_RUNS = 5;
+    private static final int MEASURED_RUNS = 7;
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args Optional: the nesting depths to measure.
+     * @throws Exception If a file can not be written or the benchmark is interrupted.
+     */
+    public static void main(String[] args) throws Exception {
+        int[] depths = args.length == 0 ? DEFAULT_DEPTHS :
+                Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+
+        // Warm up on the deepest file, so the first depth is not measured with interpreted code:
+        Path warmup = generate(depths[depths.length - 1]);
+        BenchmarkDriver.measure(WARMUP_RUNS, 0, () -> BenchmarkDriver.validate(warmup));
+        Files.delete(warmup);
+
+        boolean passed = true;
+        System.out.printf("%8s %8s %10s %12s%n", "depth", "lines", "median ms", "ns per line");
+        for (int depth : depths) {
+            Path path = generate(depth);
+            long lines = Files.readAllLines(path, StandardCharsets.UTF_8).size();
+            BenchmarkDriver.Timing timing = BenchmarkDriver.measure(WARMUP_RUNS, MEASURED_RUNS,
+                    () -> BenchmarkDriver.validate(path));
+            Files.delete(path);
+
+            if (timing.failure() != null) {
+                passed = false;
+                System.out.printf("%8d %8d %s%n", depth, lines, timing.failure());
+                continue;
+            }
+            long median = timing.median();
+            System.out.printf("%8d %8d %10.2f %12d%n", depth, lines, median / 1e6, median / lines);
+        }
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Generates a valid file with a single method whose blocks nest to a given depth.
+     *
+     * @param depth The nesting depth of the blocks.
+     * @return The path of the file.
+     * @throws IOException If the file can not be written.
+     */
+    private static Path generate(int depth) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("int g = 0;");
+        lines.add("void nested(int p) {");
+        lines.add("    int v0 = p;");
+        for (int level = 1; level <= depth; level++) {
+            lines.add(level % 2 == 0 ? "while (true) {" : "if (" + level + " || false) {");
+            lines.add("int v" + level + " = " + level + ";");
+            lines.add("v0 = " + level + ";");
+            lines.add("g = " + level + ";");
+        }
+        for (int level = depth; level >= 1; level--) {
+            lines.add("}");
+        }
+        lines.add("    return;");
+        lines.add("}");
+        Path path = Files.createTempFile("sjavac-nesting", ".sjava");
+        Files.write(path, lines, StandardCharsets.UTF_8);
+        return path;
+    }
+}
@@ -0,0 +1,72 @@
+package ex5.util;
+
+import java.util.Random;
+
+/**
+ * The ByteScannerTest class checks the searches of the {@link ByteScanner}, which read eight bytes at
+ * a time, against plain byte loops.
+ * Every search runs over random ranges of random buffers, whose bytes are drawn mostly from the bytes
+ * the searches look for and their neighbours, so matches fall in every lane of a long, in the tail
+ * and right at the ends of the ranges.
+ * <p>
+ * Usage: java ex5.util.ByteScannerTest [ranges]
+ * The default is 2 million ranges. The exit status is 0 if every result matched, and 1 otherwise.
+ */
+public class ByteScannerTest {
+    private static final int DEFAULT_RANGES = 2_000_000;
+    private static final int MAX_BUFFER_SIZE = 80;
+    private static final long SEED = 20261018L;
+    private static final byte[] INTERESTING_BYTES = {
+            '\n', '\r', 0, 1, '\t', ' ', 'a', '{', '}', '/', 0x7F, (byte) 0x80, (byte) 0x8A, (byte) 0xFF
+    };
+
+    /**
+     * Runs the checks.
+     *
+     * @param args Optional: the number of ranges to check.
+     */
+    public static void main(String[] args) {
+        int ranges = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_RANGES;
+        Random random = new Random(SEED);
+        int mismatches = 0;
+        for (int range = 0; range < ranges; range++) {
+            byte[] source = new byte[random.nextInt(MAX_BUFFER_SIZE + 1)];
+            for (int i = 0; i < source.length; i++) {
+                source[i] = random.nextInt(4) == 0 ? (byte) random.nextInt() :
+                        INTERESTING_BYTES[random.nextInt(INTERESTING_BYTES.length)];
+            }
+            int from = random.nextInt(source.length + 1);
+            int to = from + random.nextInt(source.length - from + 1);
+
+            int lineEnd = ByteScanner.indexOfLineEnd(source, from, to);
+            int expectedLineEnd = from;
+            while (expectedLineEnd < to && source[expectedLineEnd] != '\n' && source[expectedLineEnd] != '\r') {
+                expectedLineEnd++;
+            }
+            mismatches += check("indexOfLineEnd", source, from, to, expectedLineEnd, lineEnd);
+
+            int nonAscii = ByteScanner.indexOfNonAscii(source, from, to);
+            int expectedNonAscii = from;
+            while (expectedNonAscii < to && source[expectedNonAscii] >= 0) {
+                expectedNonAscii++;
+            }
+            mismatches += check("indexOfNonAscii", source, from, to, expectedNonAscii, nonAscii);
+        }
+        System.out.printf("%d ranges: %d mismatches%n", ranges, mismatches);
+        System.exit(mismatches == 0 ? 0 : 1);
+    }
+
+    /**
+     * Compares a result to the expected one, and reports a mismatch.
+     *
+     * @return 1 if the results differ, 0 otherwise.
+     */
+    private static int check(String search, byte[] source, int from, int to, int expected, int actual) {
+        if (expected == actual) {
+            return 0;
+        }
+        System.out.printf("MISMATCH %s of [%d, %d) in %d bytes: expected %d, got %d%n",
+                search, from, to, source.length, expected, actual);
+        return 1;
+    }
+}